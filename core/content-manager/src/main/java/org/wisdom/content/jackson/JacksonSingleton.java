@@ -22,6 +22,7 @@ package org.wisdom.content.jackson;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.*;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -53,6 +54,7 @@ import javax.xml.transform.stream.StreamResult;
 import java.io.*;
 import java.nio.charset.Charset;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
 
 /**
@@ -249,6 +251,28 @@ public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
         }
     }
 
+    /**
+     * Reads a stream containing a json array, and maps its elements one at a time while iterating. The array is
+     * never loaded entirely in memory.
+     * The stream is <strong>not</strong> closed by the method.
+     *
+     * @param stream the JSON stream
+     * @param clazz  the class of the elements
+     * @return the iterator on the elements
+     * @throws IOException if the stream does not start with a json array
+     */
+    @Override
+    public <A> Iterator<A> fromJsonArray(InputStream stream, Class<A> clazz) throws IOException {
+        ObjectMapper current = mapper();
+        JsonParser parser = current.getFactory().createParser(stream);
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new IOException("The stream does not contain a json array");
+        }
+        // The iterator reads the next token, so it moves to the first element (or to the end of the array).
+        parser.clearCurrentToken();
+        return current.readValues(parser, clazz);
+    }
+
     /**
      * Creates a new JSON Object.
      *
@@ -30,8 +30,10 @@ import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.content.jackson.JacksonSingleton;
 import org.wisdom.test.parents.FakeConfiguration;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -196,6 +198,24 @@ public class JsonSingletonTest {
 
     }
 
+    @Test
+    public void testFromJsonArray() throws Exception {
+        String test = "[{\"name\":\"clement\", \"age\":33}, {\"name\":\"wisdom\", \"age\":2}]";
+        Iterator<Data> iterator = json.fromJsonArray(IOUtils.toInputStream(test), Data.class);
+        assertThat(iterator.hasNext()).isTrue();
+        assertThat(iterator.next().name).isEqualTo("clement");
+        assertThat(iterator.hasNext()).isTrue();
+        assertThat(iterator.next().age).isEqualTo(2);
+        assertThat(iterator.hasNext()).isFalse();
+
+        assertThat(json.fromJsonArray(IOUtils.toInputStream("[]"), Data.class).hasNext()).isFalse();
+    }
+
+    @Test(expected = IOException.class)
+    public void testFromJsonArrayWithoutArray() throws Exception {
+        json.fromJsonArray(IOUtils.toInputStream("{\"name\":\"clement\"}"), Data.class);
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testWithCustomConfigurationHavingAnIllegalParameter() throws Exception {
         Map<String, Object> configuration = ImmutableMap.<String, Object>of(
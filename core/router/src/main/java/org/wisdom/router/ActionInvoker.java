@@ -0,0 +1,224 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wisdom.api.Controller;
+import org.wisdom.api.content.ParameterFactories;
+import org.wisdom.api.http.Context;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.router.parameters.ActionParameter;
+import org.wisdom.router.parameter.Bindings;
+import org.wisdom.router.parameter.RouteParameterHandler;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Invokes an action method. Instances are created when the route is registered: the action method is called through a
+ * {@link MethodHandle} bound to the controller instead of {@link Method#invoke(Object, Object...)}. The parameter
+ * handlers are resolved once, and resolved again when the bindings are replaced with {@link Bindings#bind}, so the
+ * new bindings apply to the existing routes.
+ * <p>
+ * Exceptions thrown by the action method are wrapped into {@link InvocationTargetException}, as with reflection,
+ * so filters and error handlers see the same exceptions.
+ */
+final class ActionInvoker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ActionInvoker.class);
+
+    private static final Object[] NO_PARAMETERS = new Object[0];
+
+    private static final MethodType TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    /**
+     * The numeric primitive types, ordered so that each type can be widened to the following ones (JLS 5.1.2).
+     */
+    private static final List<Class<?>> NUMERICS = Arrays.<Class<?>>asList(byte.class, short.class, int.class,
+            long.class, float.class, double.class);
+
+    private final Controller controller;
+    private final Method method;
+    private final ActionParameter[] arguments;
+
+    /**
+     * The types of the action method's parameters, primitive types being replaced by their wrapper.
+     */
+    private final Class<?>[] types;
+    private final Class<?>[] primitives;
+
+    /**
+     * The method handle taking the parameters as array, {@code null} if it cannot be created, in this case,
+     * reflection is used.
+     */
+    private final MethodHandle handle;
+
+    /**
+     * The parameter handlers, resolved from the bindings.
+     */
+    private volatile Handlers handlers;
+
+    /**
+     * Creates the invoker.
+     *
+     * @param controller the controller object
+     * @param method     the action method
+     * @param arguments  the action method's parameters
+     */
+    ActionInvoker(Controller controller, Method method, List<ActionParameter> arguments) {
+        this.controller = controller;
+        this.method = method;
+        this.arguments = arguments.toArray(new ActionParameter[arguments.size()]);
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        this.types = new Class<?>[parameterTypes.length];
+        this.primitives = new Class<?>[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            primitives[i] = parameterTypes[i].isPrimitive() ? parameterTypes[i] : null;
+            types[i] = MethodType.methodType(parameterTypes[i]).wrap().returnType();
+        }
+        this.handle = createHandle(controller, method);
+        this.handlers = new Handlers(this.arguments);
+    }
+
+    private static MethodHandle createHandle(Controller controller, Method method) {
+        try {
+            MethodHandle mh = MethodHandles.lookup().unreflect(method);
+            if (!Modifier.isStatic(method.getModifiers())) {
+                mh = mh.bindTo(controller);
+            }
+            return mh.asSpreader(Object[].class, method.getParameterTypes().length).asType(TYPE);
+        } catch (IllegalAccessException | IllegalArgumentException e) {
+            LOGGER.debug("Cannot create a method handle for {}, using reflection", method, e);
+            return null;
+        }
+    }
+
+    /**
+     * Computes the values of the action method's parameters.
+     *
+     * @param context the HTTP context
+     * @param engine  the parameter converter engine
+     * @return the parameters
+     */
+    Object[] bind(Context context, ParameterFactories engine) {
+        if (arguments.length == 0) {
+            return NO_PARAMETERS;
+        }
+        Handlers current = handlers;
+        if (current.version != Bindings.version()) {
+            current = new Handlers(arguments);
+            handlers = current;
+        }
+        Object[] parameters = new Object[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            RouteParameterHandler handler = current.handlers[i];
+            if (handler != null) {
+                parameters[i] = handler.create(arguments[i], context, engine);
+            } else {
+                LOGGER.warn("Unsupported route parameter in method : {}", arguments[i].getSource().name());
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * Invokes the action method.
+     *
+     * @param parameters the parameters
+     * @return the result
+     * @throws InvocationTargetException if the action method throws an exception
+     * @throws IllegalAccessException    if the action method cannot be called
+     * @throws IllegalArgumentException  if the parameters do not match the action method's parameters, as with
+     *                                   reflection
+     */
+    Result invoke(Object[] parameters) throws InvocationTargetException, IllegalAccessException {
+        if (handle == null) {
+            return (Result) method.invoke(controller, parameters);
+        }
+        // The conversion failures of the handle cannot be distinguished from the exceptions thrown by the action
+        // method, so the parameters are checked first.
+        checkParameters(parameters);
+        Object result;
+        try {
+            // The call site type must be exactly (Object[])Object.
+            result = handle.invokeExact(parameters);
+        } catch (Throwable e) { //NOSONAR the parameters are valid, so it's thrown by the action method
+            throw new InvocationTargetException(e);
+        }
+        return (Result) result;
+    }
+
+    private void checkParameters(Object[] parameters) {
+        if (parameters.length != types.length) {
+            throw new IllegalArgumentException("wrong number of arguments");
+        }
+        for (int i = 0; i < parameters.length; i++) {
+            if (!accepts(i, parameters[i])) {
+                throw new IllegalArgumentException("argument type mismatch");
+            }
+        }
+    }
+
+    private boolean accepts(int index, Object parameter) {
+        if (parameter == null) {
+            return primitives[index] == null;
+        }
+        if (types[index].isInstance(parameter)) {
+            return true;
+        }
+        // As reflection, accepts the widening primitive conversions, such as an Integer for a long parameter.
+        return primitives[index] != null
+                && isWidening(MethodType.methodType(parameter.getClass()).unwrap().returnType(), primitives[index]);
+    }
+
+    private static boolean isWidening(Class<?> from, Class<?> to) {
+        int target = NUMERICS.indexOf(to);
+        if (from == char.class) {
+            return target >= NUMERICS.indexOf(int.class);
+        }
+        int source = NUMERICS.indexOf(from);
+        return source >= 0 && target > source;
+    }
+
+    /**
+     * The parameter handlers resolved for a version of the bindings.
+     */
+    private static final class Handlers {
+
+        private final int version;
+        private final RouteParameterHandler[] handlers;
+
+        private Handlers(ActionParameter[] arguments) {
+            // Read the version first, so a concurrent change is detected on the next invocation.
+            this.version = Bindings.version();
+            this.handlers = new RouteParameterHandler[arguments.length];
+            for (int i = 0; i < arguments.length; i++) {
+                handlers[i] = Bindings.handler(arguments[i].getSource());
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.wisdom.api.http.HeaderNames;
+import org.wisdom.api.http.Request;
+import org.wisdom.api.http.Status;
+import org.wisdom.api.router.Route;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Keeps the result of the content negotiation. Real traffic uses a handful of distinct {@literal Content-Type} and
+ * {@literal Accept} header values, so the decision taken for a set of candidate routes and a pair of header values
+ * is reused instead of parsing the media types and comparing them to the routes on every request.
+ * <p>
+ * The number of kept decisions is bounded, the least recently used ones are evicted. Instances belong to a route
+ * table, so they are discarded with it when the set of routes changes.
+ */
+final class NegotiationCache {
+
+    /**
+     * The decision, when the request is served by one of the candidates, is its position in the candidate list.
+     * Otherwise, it's the opposite of the status to return, so it's always negative.
+     */
+    private final Cache<Key, Integer> decisions;
+
+    /**
+     * Creates the cache.
+     *
+     * @param size the maximum number of kept decisions
+     */
+    NegotiationCache(int size) {
+        decisions = CacheBuilder.newBuilder().maximumSize(size).build();
+    }
+
+    /**
+     * Selects the route handling the given request.
+     *
+     * @param candidates the routes matching the request path, in their priority order
+     * @param request    the request, may be {@code null}
+     * @return the position of the selected route in the candidate list, or, if none can handle the request, the
+     * opposite of the status to return ({@link Status#UNSUPPORTED_MEDIA_TYPE} or {@link Status#NOT_ACCEPTABLE})
+     */
+    int negotiate(List<RouteIndex.Match> candidates, Request request) {
+        if (request == null) {
+            return compute(candidates, null);
+        }
+        Key key = new Key(candidates, request.contentMimeType(), request.getHeader(HeaderNames.ACCEPT));
+        Integer decision = decisions.getIfPresent(key);
+        if (decision == null) {
+            decision = compute(candidates, request);
+            decisions.put(key, decision);
+        }
+        return decision;
+    }
+
+    /**
+     * Discards all the kept decisions.
+     */
+    void clear() {
+        decisions.invalidateAll();
+    }
+
+    /**
+     * Runs the content negotiation, without using the kept decisions.
+     *
+     * @param candidates the routes matching the request path, in their priority order
+     * @param request    the request, may be {@code null}
+     * @return the decision, as returned by {@link #negotiate(List, Request)}
+     */
+    static int compute(List<RouteIndex.Match> candidates, Request request) {
+        // Find the route that accept the request
+        List<Integer> fullMatch = new ArrayList<>();
+        List<Integer> partialMatch = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            final int acceptation = candidates.get(i).route().isCompliantWithRequestContentType(request);
+            switch (acceptation) {
+                case 2:
+                    // It's a full match
+                    fullMatch.add(i);
+                    break;
+                case 1:
+                    // It's a wildcard match, we have to see if we don't have a full match later.
+                    partialMatch.add(i);
+                    break;
+                default:
+                    // Not accepted.
+            }
+        }
+
+        if (fullMatch.isEmpty() && partialMatch.isEmpty()) {
+            // Not Acceptable Content
+            return -Status.UNSUPPORTED_MEDIA_TYPE;
+        }
+
+        // Check against the produce type
+        fullMatch.addAll(partialMatch);
+        for (int i : fullMatch) {
+            if (candidates.get(i).route().isCompliantWithRequestAccept(request)) {
+                return i;
+            }
+        }
+        return -Status.NOT_ACCEPTABLE;
+    }
+
+    /**
+     * The key of a decision: the candidate routes, compared by identity, and the negotiated header values.
+     */
+    private static final class Key {
+        private final Route[] routes;
+        private final String contentType;
+        private final String accept;
+        private final int hash;
+
+        private Key(List<RouteIndex.Match> candidates, String contentType, String accept) {
+            this.routes = new Route[candidates.size()];
+            int h = 1;
+            for (int i = 0; i < routes.length; i++) {
+                routes[i] = candidates.get(i).route();
+                h = 31 * h + System.identityHashCode(routes[i]);
+            }
+            this.contentType = contentType;
+            this.accept = accept;
+            this.hash = 31 * (31 * h + Objects.hashCode(contentType)) + Objects.hashCode(accept);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            if (hash != other.hash || routes.length != other.routes.length
+                    || !Objects.equals(contentType, other.contentType) || !Objects.equals(accept, other.accept)) {
+                return false;
+            }
+            for (int i = 0; i < routes.length; i++) {
+                if (routes[i] != other.routes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -19,9 +19,10 @@
  */
 package org.wisdom.router;
 
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Maps;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Sets;
 import com.google.common.net.MediaType;
 import org.apache.felix.ipojo.annotations.*;
@@ -36,14 +37,15 @@ import org.wisdom.api.interception.Filter;
 import org.wisdom.api.interception.Interceptor;
 import org.wisdom.api.router.AbstractRouter;
 import org.wisdom.api.router.Route;
+import org.wisdom.api.router.RouteMatch;
 import org.wisdom.api.router.RouteUtils;
 import org.wisdom.api.router.RoutingException;
 
 import javax.validation.Validator;
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The request router responsible for handling request and invoke the action methods.
@@ -55,38 +57,23 @@ public class RequestRouter extends AbstractRouter {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RequestRouter.class);
 
-    private static final Map<String, String> PERCENT_ENCODING_MAP = new TreeMap<>();
-
-    static {
-        // Reserved characters.
-        PERCENT_ENCODING_MAP.put("/", "%2F");
-
-        // Common characters
-        PERCENT_ENCODING_MAP.put(" ", "%20");
-        PERCENT_ENCODING_MAP.put("\"", "%22");
-        PERCENT_ENCODING_MAP.put("%", "%25");
-        PERCENT_ENCODING_MAP.put("-", "%2D");
-        PERCENT_ENCODING_MAP.put("<", "%3C");
-        PERCENT_ENCODING_MAP.put(">", "%3E");
-        PERCENT_ENCODING_MAP.put("\\", "%5C");
-        PERCENT_ENCODING_MAP.put("ˆ", "%5E");
-        PERCENT_ENCODING_MAP.put("_", "%5F");
-        PERCENT_ENCODING_MAP.put("`", "%60");
-        PERCENT_ENCODING_MAP.put("{", "%7B");
-        PERCENT_ENCODING_MAP.put("|", "%7C");
-        PERCENT_ENCODING_MAP.put("}", "%7D");
-
-        // New line
-        PERCENT_ENCODING_MAP.put("\n", "%0A");
-    }
+    /**
+     * The maximum number of content negotiation decisions kept by a route table.
+     */
+    private static final int MAX_NEGOTIATIONS = 1024;
 
     /**
      * The comparator used to sort filters.
      */
     private Set<Filter> filters = new FilterSet();
 
-    @Requires(optional = true, specification = Interceptor.class)
-    private List<Interceptor<?>> interceptors;
+    private final List<Interceptor<?>> interceptors = new CopyOnWriteArrayList<>();
+
+    /**
+     * Incremented every time a filter or an interceptor arrives or leaves. Routes use it to know whether their
+     * pre-computed interception chain is still valid.
+     */
+    private final AtomicInteger chainGeneration = new AtomicInteger();
 
     @Requires(optional = true, proxy = false)
     private Validator validator;
@@ -94,87 +81,147 @@ public class RequestRouter extends AbstractRouter {
     @Requires(optional = true)
     private ParameterFactories engine;
 
+    /**
+     * The set of routes, only accessed while holding the monitor lock. Readers must use {@link #table}.
+     */
     private Set<RouteDelegate> routes = new LinkedHashSet<>();
 
+    /**
+     * The routes indexed by HTTP method and url, used to detect conflicts without comparing the new routes to all
+     * the existing routes. Only accessed while holding the monitor lock.
+     */
+    private final ListMultimap<String, RouteDelegate> routesByMethodAndUrl = ArrayListMultimap.create();
+
+    /**
+     * Incremented every time the set of routes changes. Only modified while holding the monitor lock.
+     */
+    private int modifications;
+
+    /**
+     * An immutable snapshot of the routes and of their index. Request processing reads this snapshot without
+     * locking. A new snapshot is published once the set of routes has changed, the previous one is served until
+     * then.
+     */
+    private volatile RouteTable table = new RouteTable(Collections.<RouteDelegate>emptySet(), 0);
+
+    /**
+     * Held while computing a new snapshot, so only one computation runs at a time.
+     */
+    private final Object publication = new Object();
+
     /**
      * Binds a new controller.
      *
      * @param controller the controller
      */
     @Bind(aggregate = true, optional = true)
-    public synchronized void bindController(Controller controller) {
-        LOGGER.info("Adding routes from " + controller);
+    public void bindController(Controller controller) {
+        synchronized (this) {
+            register(controller);
+            modifications++;
+        }
+        publish();
+    }
 
-        List<Route> newRoutes = new ArrayList<>();
-        try {
+    /**
+     * Unbinds a controller.
+     *
+     * @param controller the controller
+     */
+    @Unbind(aggregate = true)
+    public void unbindController(Controller controller) {
+        LOGGER.info("Removing routes from " + controller);
+        synchronized (this) {
+            Collection<RouteDelegate> copy = new LinkedHashSet<>(routes);
+            for (RouteDelegate r : copy) {
+                if (r.getControllerObject().equals(controller)) {
+                    routes.remove(r);
+                    // Delegates are compared by identity, as their equals method compares the wrapped routes.
+                    routesByMethodAndUrl.get(key(r)).removeIf(delegate -> delegate == r);
+                }
+            }
+            modifications++;
+        }
+        publish();
+    }
 
-            List<Route> annotatedNewRoutes = RouteUtils.collectRouteFromControllerAnnotations(controller);
-            newRoutes.addAll(annotatedNewRoutes);
-            newRoutes.addAll(controller.routes());
+    /**
+     * Adds the routes of the given controller. If one of the routes is invalid or conflicts with an existing route,
+     * none of the routes of the controller are added. Must be called while holding the monitor lock.
+     *
+     * @param controller the controller
+     */
+    private void register(Controller controller) {
+        long begin = System.nanoTime();
+        List<RouteDelegate> newRoutes;
+        try {
+            List<Route> declared = new ArrayList<>();
+            declared.addAll(RouteUtils.collectRouteFromControllerAnnotations(controller));
+            declared.addAll(controller.routes());
 
             //check if these new routes don't pre-exist
-            ensureNoConflicts(newRoutes);
-
+            newRoutes = ensureNoConflicts(declared);
         } catch (RoutingException e) {
             LOGGER.error("The controller {} declares routes conflicting with existing routes, " +
                     "the controller is ignored, reason: {}", controller, e.getMessage(), e);
-            // remove all new routes as one has failed
-            routes.removeAll(newRoutes);  //NOSONAR
+            return;
         } catch (Exception e) {
             LOGGER.error("The controller {} declares invalid routes, " +
                     "the controller is ignored, reason: {}", controller, e.getMessage(), e);
-            // remove all new routes as one has failed
-            routes.removeAll(newRoutes); //NOSONAR
+            return;
         }
-    }
 
-    /**
-     * Unbinds a controller.
-     *
-     * @param controller the controller
-     */
-    @Unbind(aggregate = true)
-    public synchronized void unbindController(Controller controller) {
-        LOGGER.info("Removing routes from " + controller);
-        Collection<RouteDelegate> copy = new LinkedHashSet<>(routes);
-        for (RouteDelegate r : copy) {
-            if (r.getControllerObject().equals(controller)) {
-                routes.remove(r);
+        for (RouteDelegate delegate : newRoutes) {
+            if (routes.add(delegate)) {
+                routesByMethodAndUrl.put(key(delegate), delegate);
             }
         }
+        LOGGER.info("{} route(s) added from {} in {} ms", newRoutes.size(), controller,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
     }
 
-    private void ensureNoConflicts(List<Route> newRoutes) {
-        //check if these new routes don't pre-exist in existingRoutes
+    /**
+     * Checks that the given routes don't conflict with the existing routes, nor between themselves.
+     *
+     * @param newRoutes the new routes
+     * @return the routes to add
+     * @throws RoutingException if a conflict is detected
+     */
+    private List<RouteDelegate> ensureNoConflicts(List<Route> newRoutes) {
+        List<RouteDelegate> delegates = new ArrayList<>(newRoutes.size());
+        ListMultimap<String, Route> pending = ArrayListMultimap.create();
         for (Route newRoute : newRoutes) {
-            if (!isRouteConflictingWithExistingRoutes(newRoute)) {
-                // this routes seems to be clean, store it
-                final RouteDelegate delegate = new RouteDelegate(this, newRoute);
-                routes.add(delegate);
-            }
+            String key = key(newRoute);
+            checkConflicts(routesByMethodAndUrl.get(key), newRoute);
+            checkConflicts(pending.get(key), newRoute);
+            // this routes seems to be clean, store it
+            pending.put(key, newRoute);
+            delegates.add(new RouteDelegate(this, newRoute));
         }
+        return delegates;
     }
 
-    private boolean isRouteConflictingWithExistingRoutes(Route route) {
-        for (Route existing : routes) {
-            if (hasSameMethodAndUrl(existing, route)) {
-                // The routes are using the same HTTP Verb and URL, so we need to check the other aspect: accepted
-                // and produced types
-                if (hasSameOrOverlappingAcceptedTypes(existing, route) &&
-                        hasSameOrOverlappingProducedTypes(existing, route)) {
-                    throw new RoutingException(existing.getHttpMethod() + " " + existing.getUrl()
-                            + " is already registered by controller " + existing.getControllerClass() + " - "
-                            + existing.toString() + " conflicts with " + route.toString());
-                }
+    private void checkConflicts(Collection<? extends Route> existingRoutes, Route route) {
+        for (Route existing : existingRoutes) {
+            // The routes are using the same HTTP Verb and URL, so we need to check the other aspect: accepted
+            // and produced types
+            if (hasSameOrOverlappingAcceptedTypes(existing, route) &&
+                    hasSameOrOverlappingProducedTypes(existing, route)) {
+                throw new RoutingException(existing.getHttpMethod() + " " + existing.getUrl()
+                        + " is already registered by controller " + existing.getControllerClass() + " - "
+                        + existing.toString() + " conflicts with " + route.toString());
             }
         }
-
-        return false;
     }
 
-    private boolean hasSameMethodAndUrl(Route actual, Route other) {
-        return other.getUrl().equals(actual.getUrl())
-                && other.getHttpMethod() == actual.getHttpMethod();
+    /**
+     * Computes the key used to detect conflicts: routes having the same HTTP method and url.
+     *
+     * @param route the route
+     * @return the key
+     */
+    private static String key(Route route) {
+        return route.getHttpMethod() + " " + route.getUrl();
     }
 
     private boolean hasSameOrOverlappingAcceptedTypes(Route actual, Route other) {
@@ -218,11 +265,37 @@ public class RequestRouter extends AbstractRouter {
      */
     @Invalidate
     public void stop() {
-        routes.clear();
+        synchronized (this) {
+            routes.clear();
+            routesByMethodAndUrl.clear();
+            modifications++;
+        }
+        publish();
     }
 
-    private synchronized Set<Route> copy() {
-        return new LinkedHashSet<Route>(routes);
+    /**
+     * Publishes a new snapshot of the routes, unless a snapshot including the last modification has already been
+     * published. Must be called once the modification is done, without holding the monitor lock, so the conflict
+     * checks of the other controllers are not delayed by the computation.
+     * <p>
+     * Only one snapshot is computed at a time. The callers waiting meanwhile generally find their modification
+     * included in the published snapshot, so controllers bound concurrently lead to a single computation. Requests
+     * are served using the previous snapshot until the new one is published.
+     */
+    private void publish() {
+        synchronized (publication) {
+            int version;
+            List<RouteDelegate> snapshot;
+            synchronized (this) {
+                version = modifications;
+                if (table.version == version) {
+                    // Already published by another thread.
+                    return;
+                }
+                snapshot = new ArrayList<>(routes);
+            }
+            table = new RouteTable(snapshot, version);
+        }
     }
 
     /**
@@ -235,62 +308,64 @@ public class RequestRouter extends AbstractRouter {
      */
     @Override
     public Route getRouteFor(HttpMethod method, String uri, Request request) {
+        return match(method, uri, request).route();
+    }
+
+    /**
+     * Gets the {@link org.wisdom.api.router.Route} object handling the given request, along with the path
+     * parameters captured while looking it up.
+     *
+     * @param method  the method the request method
+     * @param uri     the URL of the request
+     * @param request the incoming request
+     * @return the match, its route is {@literal unbound} if no action method can handle the request.
+     */
+    @Override
+    public RouteMatch match(HttpMethod method, String uri, Request request) {
         // Compute the list of matching routes - only the path is check in this first stage
-        List<Route> list = new ArrayList<>(1);
-        //TODO This can be faster by using an immutable list.
-        list.addAll(copy().stream()
-                .filter(route -> route.matches(method, uri))
-                .sorted((r1, r2) -> {
-                    // Exact match first.
-                    if (r1.getUrl().equalsIgnoreCase(uri)) {
-                        return -1;
-                    } else if (r2.getUrl().equalsIgnoreCase(uri)) {
-                        return 1;
-                    }
-                    // Not comparable
-                    return 0;
-                })
-                .collect(Collectors.toList()));
+        // Exact matches come first.
+        RouteTable current = table;
+        List<RouteIndex.Match> list = current.index.find(method, uri);
 
         if (list.isEmpty()) {
             // Creates an unbound route - 404
-            return new RouteDelegate(this, new Route(method, uri, Status.NOT_FOUND));
+            return unbound(method, uri, Status.NOT_FOUND);
         }
 
-        // Find the route that accept the request
-        List<Route> fullMatch = new ArrayList<>();
-        List<Route> partialMatch = new ArrayList<>();
-        for (Route route : list) {
-            final int acceptation = route.isCompliantWithRequestContentType(request);
-            switch (acceptation) {
-                case 2:
-                    // It's a full match
-                    fullMatch.add(route);
-                    break;
-                case 1:
-                    // It's a wildcard match, we have to see if we don't have a full match later.
-                    partialMatch.add(route);
-                    break;
-                default:
-                    // Not accepted.
-            }
+        if (list.size() == 1 && isNegotiationFree(list.get(0).route())) {
+            // Single candidate without any accepted or produced media type, no negotiation required.
+            return select(list.get(0));
         }
 
-        if (fullMatch.isEmpty() && partialMatch.isEmpty()) {
-            // Not Acceptable Content
-            return new RouteDelegate(this, new Route(method, uri, Status.UNSUPPORTED_MEDIA_TYPE));
+        // Negotiate the route using the content type and accept headers, the decision is kept for the next
+        // requests with the same headers.
+        int decision = current.negotiations.negotiate(list, request);
+        if (decision < 0) {
+            return unbound(method, uri, -decision);
         }
+        return select(list.get(decision));
+    }
 
-        // Check against the produce type
-        fullMatch.addAll(partialMatch);
-        for (Route route : fullMatch) {
-            if (route.isCompliantWithRequestAccept(request)) {
-                return route;
-            }
-        }
+    /**
+     * Discards the kept content negotiation decisions, called when the media types of a route change.
+     */
+    void negotiationChanged() {
+        table.negotiations.clear();
+    }
+
+    private static RouteMatch select(RouteIndex.Match match) {
+        // Return the path parameters captured during the lookup, so they are not extracted again.
+        return new RouteMatch(match.route(), match.parameters());
+    }
 
-        return new RouteDelegate(this, new Route(method, uri, Status.NOT_ACCEPTABLE));
+    private RouteMatch unbound(HttpMethod method, String uri, int status) {
+        return new RouteMatch(new RouteDelegate(this, new Route(method, uri, status)), null);
+    }
 
+    private static boolean isNegotiationFree(Route route) {
+        Set<MediaType> accepted = route.getAcceptedMediaTypes();
+        Set<MediaType> produced = route.getProducedMediaTypes();
+        return (accepted == null || accepted.isEmpty()) && (produced == null || produced.isEmpty());
     }
 
     /**
@@ -303,102 +378,23 @@ public class RequestRouter extends AbstractRouter {
      */
     @Override
     public String getReverseRouteFor(String className, String method, Map<String, Object> params) {
-        for (Route route : copy()) {
-            if (route.getControllerClass().getName().equals(className)
-                    && route.getControllerMethod().getName().equals(method)) {
-                return computeUrlForRoute(route, params);
-            }
+        Map<String, RouteDelegate> methods = table.reverse.get(className);
+        if (methods == null) {
+            return null;
+        }
+        RouteDelegate route = methods.get(method);
+        if (route == null) {
+            return null;
         }
-        return null;
+        return route.getUrlTemplate().toUrl(params);
     }
 
     /**
-     * @return a copy of the current routes.
+     * @return an immutable snapshot of the current routes.
      */
     @Override
     public Collection<Route> getRoutes() {
-        return copy();
-    }
-
-    private String computeUrlForRoute(Route route, Map<String, Object> params) {
-        if (params == null) {
-            // No variables, return the raw url.
-            return route.getUrl();
-        }
-
-        // The original url. Something like route/user/{id}/{email}/userDashboard
-        String urlWithReplacedPlaceholders = route.getUrl();
-
-        Map<String, Object> queryParameterMap = Maps.newHashMap();
-
-        for (Map.Entry<String, Object> entry : params.entrySet()) {
-            String originalRegexEscaped = String.format("\\{%s(\\+)?\\}", entry.getKey());
-            // If regex is in the url as placeholder we replace the placeholder
-            final boolean containVar = urlWithReplacedPlaceholders.contains("{" + entry.getKey() + "}");
-            final boolean containAndCanSpreadOnSeveralSegment
-                    = urlWithReplacedPlaceholders.contains("{" + entry.getKey() + "+}");
-            if (containVar || containAndCanSpreadOnSeveralSegment) {
-                urlWithReplacedPlaceholders = urlWithReplacedPlaceholders.replaceAll(
-                        originalRegexEscaped,
-                        pathEncode(entry.getValue().toString(), containAndCanSpreadOnSeveralSegment));
-                // If the parameter is not there as placeholder we add it as queryParameter
-            } else {
-                queryParameterMap.put(entry.getKey(), entry.getValue());
-            }
-        }
-
-        // now prepare the query string for this url if we got some query params
-        if (!queryParameterMap.entrySet().isEmpty()) {
-
-            StringBuilder queryParameterStringBuffer = new StringBuilder();
-
-            // The uri is now replaced => we now have to add potential query parameters
-            for (Iterator<Map.Entry<String, Object>> iterator = queryParameterMap.entrySet().iterator();
-                 iterator.hasNext(); ) {
-
-                Map.Entry<String, Object> queryParameterEntry = iterator.next();
-                queryParameterStringBuffer.append(queryParameterEntry.getKey());
-                queryParameterStringBuffer.append("=");
-                // Don't forget to encode the value.
-                queryParameterStringBuffer.append(encode(queryParameterEntry.getValue().toString()));
-
-                if (iterator.hasNext()) {
-                    queryParameterStringBuffer.append("&");
-                }
-
-            }
-
-            urlWithReplacedPlaceholders = urlWithReplacedPlaceholders
-                    + "?"
-                    + queryParameterStringBuffer.toString();
-        }
-
-
-        return urlWithReplacedPlaceholders;
-    }
-
-    private String pathEncode(String s, boolean canSpreadOnSeveralSegments) {
-        String copy = s;
-        for (Map.Entry<String, String> c : PERCENT_ENCODING_MAP.entrySet()) {
-            if (s.contains(c.getKey())) {
-                if (c.getKey().endsWith("/") && canSpreadOnSeveralSegments) {
-                    // The canSpreadOnSeveralSegments parameter is true when the uri contains + such as in {path+}. In this
-                    // case, we must not convert "/" by the percent value.
-                    continue;
-                }
-                copy = copy.replace(c.getKey(), c.getValue());
-            }
-        }
-        return copy;
-    }
-
-    private String encode(String v) {
-        try {
-            return URLEncoder.encode(v, "UTF-8");
-        } catch (UnsupportedEncodingException e) {
-            // UTF-8 is part of the JVM specification.
-            throw new IllegalArgumentException("UTF-8 not supported", e);
-        }
+        return table.routes;
     }
 
     /**
@@ -433,6 +429,14 @@ public class RequestRouter extends AbstractRouter {
         return interceptors;
     }
 
+    /**
+     * @return the current generation of the filter and interceptor sets. The value changes every time a filter or an
+     * interceptor is bound or unbound.
+     */
+    protected int getChainGeneration() {
+        return chainGeneration.get();
+    }
+
     protected ParameterFactories getParameterConverterEngine() {
         return engine;
     }
@@ -445,6 +449,7 @@ public class RequestRouter extends AbstractRouter {
     @Bind(aggregate = true, optional = true)
     public void bindFilter(Filter filter) {
         filters.add(filter);
+        chainGeneration.incrementAndGet();
     }
 
     /**
@@ -455,6 +460,29 @@ public class RequestRouter extends AbstractRouter {
     @Unbind
     public synchronized void unbindFilter(Filter filter) {
         filters.remove(filter);
+        chainGeneration.incrementAndGet();
+    }
+
+    /**
+     * Binds an interceptor.
+     *
+     * @param interceptor the interceptor
+     */
+    @Bind(aggregate = true, optional = true, specification = Interceptor.class)
+    public void bindInterceptor(Interceptor<?> interceptor) {
+        interceptors.add(interceptor);
+        chainGeneration.incrementAndGet();
+    }
+
+    /**
+     * Unbinds an interceptor.
+     *
+     * @param interceptor the interceptor
+     */
+    @Unbind(specification = Interceptor.class)
+    public void unbindInterceptor(Interceptor<?> interceptor) {
+        interceptors.remove(interceptor);
+        chainGeneration.incrementAndGet();
     }
 
     /**
@@ -466,6 +494,39 @@ public class RequestRouter extends AbstractRouter {
         this.engine = parameterConverterEngine;
     }
 
+    /**
+     * An immutable view of the routes and of their index.
+     */
+    private static final class RouteTable {
+        private final Set<Route> routes;
+        private final RouteIndex index;
+        /**
+         * Controller class name -> action method name -> first route registered for this action method.
+         */
+        private final Map<String, Map<String, RouteDelegate>> reverse = new HashMap<>();
+        private final NegotiationCache negotiations = new NegotiationCache(MAX_NEGOTIATIONS);
+        /**
+         * The number of modifications of the set of routes included in this snapshot.
+         */
+        private final int version;
+
+        private RouteTable(Collection<RouteDelegate> routes, int version) {
+            this.version = version;
+            this.routes = ImmutableSet.<Route>copyOf(routes);
+            this.index = new RouteIndex(this.routes);
+            for (RouteDelegate route : routes) {
+                Map<String, RouteDelegate> methods = reverse.get(route.getControllerClass().getName());
+                if (methods == null) {
+                    methods = new HashMap<>();
+                    reverse.put(route.getControllerClass().getName(), methods);
+                }
+                if (!methods.containsKey(route.getControllerMethod().getName())) {
+                    methods.put(route.getControllerMethod().getName(), route);
+                }
+            }
+        }
+    }
+
     private static final Comparator<Filter> COMPARATOR = (o1, o2) -> {
 
         // In case of object equality, returns 0.
@@ -29,7 +29,6 @@ import org.wisdom.api.interception.Interceptor;
 import org.wisdom.api.interception.RequestContext;
 import org.wisdom.api.router.Route;
 import org.wisdom.api.router.parameters.ActionParameter;
-import org.wisdom.router.parameter.Bindings;
 
 import javax.validation.Constraint;
 import javax.validation.ConstraintViolation;
@@ -40,7 +39,6 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.*;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 /**
  * Delegated route used for interception purpose.
@@ -51,6 +49,14 @@ public class RouteDelegate extends Route {
     private final RequestRouter router;
     private final boolean mustValidate;
     private final Map<String, Object> interceptors;
+    private final ActionInvoker invoker;
+    private final UrlTemplate urlTemplate;
+    private final Filter endOfChain = new EndOfChainInvoker();
+
+    /**
+     * The interception chain computed for this route, recomputed when filters or interceptors arrive or leave.
+     */
+    private volatile Chain chain;
 
     /**
      * Creates a new instance of {@link org.wisdom.router.RouteDelegate}.
@@ -64,12 +70,25 @@ public class RouteDelegate extends Route {
         if (!route.isUnbound()) {
             this.mustValidate = detectValidationRequirement(route.getControllerMethod());
             this.interceptors = extractInterceptors();
+            this.invoker = new ActionInvoker(route.getControllerObject(), route.getControllerMethod(),
+                    route.getArguments());
+            this.urlTemplate = new UrlTemplate(route.getUrl());
         } else {
             this.mustValidate = false;
             this.interceptors = Collections.emptyMap();
+            this.invoker = null;
+            this.urlTemplate = null;
         }
     }
 
+    /**
+     * @return the template used to compute the url of this route in the reverse routing, {@code null} for unbound
+     * routes.
+     */
+    UrlTemplate getUrlTemplate() {
+        return urlTemplate;
+    }
+
     private Map<String, Object> extractInterceptors() {
         Map<String, Object> map = new LinkedHashMap<>();
         Annotation[] classAnnotations = route.getControllerClass().getAnnotations();
@@ -151,6 +170,11 @@ public class RouteDelegate extends Route {
         return route.getPathParametersEncoded(uri);
     }
 
+    @Override
+    public Map<String, String> extractPathParametersEncoded(String uri) {
+        return route.extractPathParametersEncoded(uri);
+    }
+
     @Override
     public int isCompliantWithRequestContentType(Request request) {
         return route.isCompliantWithRequestContentType(request);
@@ -158,11 +182,13 @@ public class RouteDelegate extends Route {
 
     @Override
     public Route accepting(String... types) {
+        router.negotiationChanged();
         return route.accepting(types);
     }
 
     @Override
     public Route accepts(String... types) {
+        router.negotiationChanged();
         return route.accepts(types);
     }
 
@@ -190,11 +216,13 @@ public class RouteDelegate extends Route {
 
     @Override
     public Route produces(String... types) {
+        router.negotiationChanged();
         return route.produces(types);
     }
 
     @Override
     public Route producing(String... provide) {
+        router.negotiationChanged();
         return route.producing(provide);
     }
 
@@ -218,38 +246,61 @@ public class RouteDelegate extends Route {
         Context context = Context.CONTEXT.get();
         Preconditions.checkNotNull(context);
 
-        // Build chain if needed.
+        Chain current = getChain();
+        if (current.missingInterceptor != null) {
+            return Results.badRequest("Missing interceptor handling " + current.missingInterceptor);
+        }
+
+        // Ready to call the action.
+        RequestContext ctx = new RequestContext(this, current.filters, current.configuration);
+        return ctx.proceed();
+    }
+
+    /**
+     * Gets the interception chain of the route. The chain is computed on the first invocation and reused until the
+     * set of filters or interceptors changes.
+     *
+     * @return the chain
+     */
+    private Chain getChain() {
+        // Read the generation before computing the chain, so a concurrent change triggers a new computation.
+        int generation = router.getChainGeneration();
+        Chain current = chain;
+        if (current == null || current.generation != generation) {
+            current = computeChain(generation);
+            chain = current;
+        }
+        return current;
+    }
+
+    private Chain computeChain(int generation) {
         // We get an immutable copy of the set.
         Set<Filter> filters = router.getFilters();
         // Interceptors will be handled after filters.
-        List<Filter> chain = filters.stream()
-                .filter(filter -> !(filter instanceof Interceptor)  && filter.uri().matcher(route.getUrl()).matches())
-                .collect(Collectors.toList());
+        List<Filter> list = new ArrayList<>();
+        for (Filter filter : filters) {
+            if (!(filter instanceof Interceptor) && filter.uri().matcher(route.getUrl()).matches()) {
+                list.add(filter);
+            }
+        }
 
         Map<Interceptor<?>, Object> itcpConfiguration = new LinkedHashMap<>();
-        if (!interceptors.isEmpty()) {
-            for (Map.Entry<String, Object> entry : interceptors.entrySet()) {
-                final Interceptor<?> interceptor = getInterceptorForAnnotation(entry.getKey());
-                if (interceptor == null) {
-                    return Results.badRequest("Missing interceptor handling " + entry.getKey());
-                }
-                itcpConfiguration.put(interceptor, entry.getValue());
-                chain.add(interceptor);
+        for (Map.Entry<String, Object> entry : interceptors.entrySet()) {
+            final Interceptor<?> interceptor = getInterceptorForAnnotation(entry.getKey());
+            if (interceptor == null) {
+                return new Chain(generation, entry.getKey());
             }
+            itcpConfiguration.put(interceptor, entry.getValue());
+            list.add(interceptor);
         }
 
-        // Ready to call the action.
-        Filter endOfChain = new EndOfChainInvoker();
-        RequestContext ctx = new RequestContext(this, chain, itcpConfiguration, null, endOfChain);
-        return ctx.proceed();
+        list.add(endOfChain);
+        return new Chain(generation, list.toArray(new Filter[list.size()]),
+                Collections.unmodifiableMap(itcpConfiguration));
     }
 
     private Interceptor<?> getInterceptorForAnnotation(String className) {
-        List<Interceptor<?>> localInterceptors = router.getInterceptors();
-        if (localInterceptors == null) {
-            return null;
-        }
-        for (Interceptor<?> interceptor : localInterceptors) {
+        for (Interceptor<?> interceptor : router.getInterceptors()) {
             if (interceptor.annotation().getName().equals(className)) {
                 return interceptor;
             }
@@ -283,6 +334,34 @@ public class RouteDelegate extends Route {
         return route.isUnbound();
     }
 
+    /**
+     * A pre-computed interception chain.
+     */
+    private static final class Chain {
+        private final int generation;
+        private final Filter[] filters;
+        private final Map<Interceptor<?>, Object> configuration;
+        /**
+         * The name of the interceptor annotation without matching interceptor, {@code null} if all interceptors are
+         * available.
+         */
+        private final String missingInterceptor;
+
+        private Chain(int generation, Filter[] filters, Map<Interceptor<?>, Object> configuration) {
+            this.generation = generation;
+            this.filters = filters;
+            this.configuration = configuration;
+            this.missingInterceptor = null;
+        }
+
+        private Chain(int generation, String missingInterceptor) {
+            this.generation = generation;
+            this.filters = null;
+            this.configuration = null;
+            this.missingInterceptor = missingInterceptor;
+        }
+    }
+
     private class EndOfChainInvoker implements Filter {
         /**
          * We are the end of the chain, so we call the action method.
@@ -301,13 +380,7 @@ public class RouteDelegate extends Route {
             } else {
 
                 // The interceptor and filter may have change some values, compute the parameters.
-                final List<ActionParameter> arguments = getArguments();
-                Object[] parameters = new Object[arguments.size()];
-                for (int i = 0; i < arguments.size(); i++) {
-                    ActionParameter argument = arguments.get(i);
-                    parameters[i] = Bindings.create(argument, context.context(),
-                            router.getParameterConverterEngine());
-                }
+                Object[] parameters = invoker.bind(context.context(), router.getParameterConverterEngine());
 
                 // Validate if needed.
                 if (mustValidate) {
@@ -327,8 +400,7 @@ public class RouteDelegate extends Route {
                 context.setParameters(parameters);
 
                 // Invoke the action method.
-                final Result result = (Result) getControllerMethod().invoke(
-                        getControllerObject(), parameters);
+                final Result result = invoker.invoke(parameters);
 
                 // Manage the VARY header if the route has a 'consume' set:
                 if (! result.getHeaders().containsKey(HeaderNames.VARY)) {
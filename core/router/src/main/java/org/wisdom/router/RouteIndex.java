@@ -0,0 +1,300 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router;
+
+import org.wisdom.api.http.HttpMethod;
+import org.wisdom.api.router.Route;
+import org.wisdom.api.router.RouteUtils;
+
+import java.util.*;
+
+/**
+ * An index of routes organized as a tree of path segments, one tree per HTTP method.
+ * <p>
+ * Static segments (such as {@code /foo}) and simple placeholders (such as {@code /{id}}) are stored as tree nodes.
+ * When a route contains a segment that cannot be expressed that way (regex placeholder, {@code {path+}},
+ * {@code {path*}}, wildcards, or placeholders mixed with text), the route is attached to the last node reached and
+ * its regex is used to check the rest of the path. So, the cost of a lookup depends on the depth of the path and not
+ * on the number of routes.
+ * <p>
+ * Instances are immutable, the router builds a new index every time the set of routes changes.
+ */
+final class RouteIndex {
+
+    /**
+     * Characters that have a meaning in the regex generated from the route uri. Segments containing one of these
+     * characters are not indexed as static segments.
+     */
+    private static final String SPECIAL_CHARACTERS = "{}<>*+?.()[]\\^$|";
+
+    /**
+     * Characters that must not appear in the name of a simple placeholder.
+     */
+    private static final String SPECIAL_PLACEHOLDER_CHARACTERS = "{}<>*+";
+
+    private final Map<HttpMethod, Node> roots = new EnumMap<>(HttpMethod.class);
+
+    /**
+     * Creates the index for the given routes. The iteration order of the given collection is the registration order,
+     * it's used to sort the routes matching a given path.
+     *
+     * @param routes the routes, unbound routes are ignored
+     */
+    RouteIndex(Collection<? extends Route> routes) {
+        int rank = 0;
+        for (Route route : routes) {
+            if (route.isUnbound()) {
+                continue;
+            }
+            Node root = roots.get(route.getHttpMethod());
+            if (root == null) {
+                root = new Node();
+                roots.put(route.getHttpMethod(), root);
+            }
+            root.insert(new Entry(route, rank++), route.getUrl().split("/", -1), 0);
+        }
+    }
+
+    /**
+     * Finds the routes matching the given method and path. Exact matches come first, then the other matching routes
+     * in their registration order.
+     *
+     * @param method the HTTP method
+     * @param uri    the path
+     * @return the list of matches, empty if none
+     */
+    List<Match> find(HttpMethod method, String uri) {
+        Node root = roots.get(method);
+        if (root == null) {
+            return Collections.emptyList();
+        }
+        List<Entry> candidates = new ArrayList<>(2);
+        root.collect(uri, 0, candidates);
+        if (candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Match> matches = new ArrayList<>(candidates.size());
+        for (Entry candidate : candidates) {
+            if (candidate.placeholders != null) {
+                // Routes ending in a node are matched by construction.
+                matches.add(new Match(candidate, uri, null));
+            } else {
+                // The others need the regex, the path parameters are extracted in the same pass.
+                Map<String, String> parameters = candidate.route.extractPathParametersEncoded(uri);
+                if (parameters != null) {
+                    matches.add(new Match(candidate, uri, parameters));
+                }
+            }
+        }
+        if (matches.size() > 1) {
+            matches.sort((m1, m2) -> Integer.compare(m1.entry.rank, m2.entry.rank));
+        }
+
+        // Exact match first.
+        List<Match> result = new ArrayList<>(matches.size());
+        for (Match match : matches) {
+            if (match.route().getUrl().equalsIgnoreCase(uri)) {
+                result.add(match);
+            }
+        }
+        for (Match match : matches) {
+            if (!match.route().getUrl().equalsIgnoreCase(uri)) {
+                result.add(match);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isStatic(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            if (SPECIAL_CHARACTERS.indexOf(segment.charAt(i)) != -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSimplePlaceholder(String segment) {
+        if (segment.length() < 3 || segment.charAt(0) != '{' || segment.charAt(segment.length() - 1) != '}') {
+            return false;
+        }
+        for (int i = 1; i < segment.length() - 1; i++) {
+            if (SPECIAL_PLACEHOLDER_CHARACTERS.indexOf(segment.charAt(i)) != -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A route matching a path, and the path parameters captured while matching.
+     */
+    static final class Match {
+        private final Entry entry;
+        private final String uri;
+        private Map<String, String> parameters;
+
+        private Match(Entry entry, String uri, Map<String, String> parameters) {
+            this.entry = entry;
+            this.uri = uri;
+            this.parameters = parameters;
+        }
+
+        /**
+         * @return the matching route
+         */
+        Route route() {
+            return entry.route;
+        }
+
+        /**
+         * @return the encoded path parameters
+         */
+        Map<String, String> parameters() {
+            if (parameters == null) {
+                parameters = entry.extract(uri);
+            }
+            return parameters;
+        }
+    }
+
+    /**
+     * A route and its registration rank.
+     */
+    private static final class Entry {
+        private final Route route;
+        private final int rank;
+        /**
+         * For routes fully stored in the tree, the index of the segments matched by placeholders, {@code null} for
+         * the routes checked using their regex.
+         */
+        private int[] placeholders;
+        private List<String> names;
+
+        private Entry(Route route, int rank) {
+            this.route = route;
+            this.rank = rank;
+        }
+
+        /**
+         * Extracts the path parameters of a route fully stored in the tree.
+         *
+         * @param uri the path, matching the route
+         * @return the path parameters
+         */
+        private Map<String, String> extract(String uri) {
+            Map<String, String> map = new HashMap<>(placeholders.length * 2);
+            int segment = 0;
+            int position = 0;
+            for (int i = 0; i < placeholders.length; i++) {
+                // Move to the segment.
+                while (segment < placeholders[i]) {
+                    position = uri.indexOf('/', position) + 1;
+                    segment++;
+                }
+                int end = uri.indexOf('/', position);
+                map.put(names.get(i), uri.substring(position, end == -1 ? uri.length() : end));
+            }
+            return map;
+        }
+    }
+
+    /**
+     * A node of the tree. It's reached after having consumed a set of segments.
+     */
+    private static final class Node {
+        private final Map<String, Node> statics = new HashMap<>();
+        private Node placeholder;
+        /**
+         * The routes fully consumed when reaching this node.
+         */
+        private final List<Entry> terminals = new ArrayList<>(1);
+        /**
+         * The routes whose remaining part cannot be indexed, the remaining part is checked using the route's regex.
+         */
+        private final List<Entry> tails = new ArrayList<>(1);
+
+        private void insert(Entry entry, String[] segments, int index) {
+            if (index == segments.length) {
+                List<String> names = RouteUtils.extractParameters(entry.route.getUrl());
+                int[] placeholders = new int[names.size()];
+                int count = 0;
+                for (int i = 0; i < segments.length; i++) {
+                    if (isSimplePlaceholder(segments[i])) {
+                        placeholders[count++] = i;
+                    }
+                }
+                entry.placeholders = placeholders;
+                entry.names = names;
+                terminals.add(entry);
+                return;
+            }
+            String segment = segments[index];
+            if (isStatic(segment)) {
+                Node child = statics.get(segment);
+                if (child == null) {
+                    child = new Node();
+                    statics.put(segment, child);
+                }
+                child.insert(entry, segments, index + 1);
+            } else if (isSimplePlaceholder(segment)) {
+                if (placeholder == null) {
+                    placeholder = new Node();
+                }
+                placeholder.insert(entry, segments, index + 1);
+            } else {
+                tails.add(entry);
+            }
+        }
+
+        /**
+         * Collects the candidates for the given path.
+         *
+         * @param uri        the path
+         * @param position   the index of the beginning of the next segment to consume, {@literal -1} if all segments
+         *                   have been consumed
+         * @param candidates the list of candidates
+         */
+        private void collect(String uri, int position, List<Entry> candidates) {
+            candidates.addAll(tails);
+            if (position < 0) {
+                candidates.addAll(terminals);
+                return;
+            }
+
+            int end = uri.indexOf('/', position);
+            int next = end + 1;
+            if (end == -1) {
+                end = uri.length();
+                next = -1;
+            }
+
+            Node child = statics.get(uri.substring(position, end));
+            if (child != null) {
+                child.collect(uri, next, candidates);
+            }
+            // Placeholders don't match empty segments.
+            if (placeholder != null && end > position) {
+                placeholder.collect(uri, next, candidates);
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router;
+
+import com.google.common.collect.Maps;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.*;
+
+/**
+ * A route url parsed once, and used to compute the urls of the reverse routing. Placeholders ({@code {name}} and
+ * {@code {name+}}) are replaced by the given values, the other parameters are added to the query string. Other
+ * kind of placeholders (regex, star) are kept as they are.
+ */
+final class UrlTemplate {
+
+    private static final Map<String, String> PERCENT_ENCODING_MAP = new TreeMap<>();
+
+    static {
+        // Reserved characters.
+        PERCENT_ENCODING_MAP.put("/", "%2F");
+
+        // Common characters
+        PERCENT_ENCODING_MAP.put(" ", "%20");
+        PERCENT_ENCODING_MAP.put("\"", "%22");
+        PERCENT_ENCODING_MAP.put("%", "%25");
+        PERCENT_ENCODING_MAP.put("-", "%2D");
+        PERCENT_ENCODING_MAP.put("<", "%3C");
+        PERCENT_ENCODING_MAP.put(">", "%3E");
+        PERCENT_ENCODING_MAP.put("\\", "%5C");
+        PERCENT_ENCODING_MAP.put("ˆ", "%5E");
+        PERCENT_ENCODING_MAP.put("_", "%5F");
+        PERCENT_ENCODING_MAP.put("`", "%60");
+        PERCENT_ENCODING_MAP.put("{", "%7B");
+        PERCENT_ENCODING_MAP.put("|", "%7C");
+        PERCENT_ENCODING_MAP.put("}", "%7D");
+
+        // New line
+        PERCENT_ENCODING_MAP.put("\n", "%0A");
+    }
+
+    /**
+     * All the characters that may need to be encoded, to quickly skip values that don't need encoding.
+     */
+    private static final String ENCODED_CHARACTERS;
+
+    static {
+        StringBuilder builder = new StringBuilder();
+        for (String key : PERCENT_ENCODING_MAP.keySet()) {
+            builder.append(key);
+        }
+        ENCODED_CHARACTERS = builder.toString();
+    }
+
+    private final String url;
+
+    /**
+     * The parts of the url, either literal text ({@link String}) or placeholders ({@link Placeholder}).
+     */
+    private final Object[] parts;
+
+    /**
+     * The names of the placeholders.
+     */
+    private final Set<String> names;
+
+    /**
+     * Parses the given url.
+     *
+     * @param url the route url
+     */
+    UrlTemplate(String url) {
+        this.url = url;
+        List<Object> list = new ArrayList<>();
+        Set<String> placeholders = new HashSet<>();
+        int position = 0;
+        while (position < url.length()) {
+            int start = url.indexOf('{', position);
+            int end = start == -1 ? -1 : url.indexOf('}', start);
+            if (end == -1) {
+                list.add(url.substring(position));
+                break;
+            }
+            String content = url.substring(start + 1, end);
+            if (content.isEmpty() || content.indexOf('{') != -1 || content.indexOf('<') != -1
+                    || content.endsWith("*")) {
+                // Not a placeholder we can replace, keep it as it is.
+                list.add(url.substring(position, end + 1));
+            } else {
+                if (start > position) {
+                    list.add(url.substring(position, start));
+                }
+                Placeholder placeholder = new Placeholder(content);
+                placeholders.add(placeholder.name);
+                list.add(placeholder);
+            }
+            position = end + 1;
+        }
+        this.parts = list.toArray();
+        this.names = placeholders;
+    }
+
+    /**
+     * Computes the url for the given parameters.
+     *
+     * @param params map of parameter name - value, {@code null} if none
+     * @return the url
+     */
+    String toUrl(Map<String, Object> params) {
+        if (params == null) {
+            // No variables, return the raw url.
+            return url;
+        }
+
+        StringBuilder builder = new StringBuilder(url.length() + 16);
+        for (Object part : parts) {
+            if (part instanceof Placeholder) {
+                Placeholder placeholder = (Placeholder) part;
+                Object value = params.get(placeholder.name);
+                if (value == null) {
+                    builder.append(placeholder.raw);
+                } else {
+                    builder.append(pathEncode(value.toString(), placeholder.canSpreadOnSeveralSegments));
+                }
+            } else {
+                builder.append((String) part);
+            }
+        }
+
+        // The parameters not used as placeholder are added as query parameters.
+        Map<String, Object> queryParameterMap = null;
+        for (Map.Entry<String, Object> entry : params.entrySet()) {
+            if (!names.contains(entry.getKey())) {
+                if (queryParameterMap == null) {
+                    queryParameterMap = Maps.newHashMap();
+                }
+                queryParameterMap.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        if (queryParameterMap != null) {
+            builder.append('?');
+            for (Iterator<Map.Entry<String, Object>> iterator = queryParameterMap.entrySet().iterator();
+                 iterator.hasNext(); ) {
+                Map.Entry<String, Object> queryParameterEntry = iterator.next();
+                builder.append(queryParameterEntry.getKey());
+                builder.append('=');
+                // Don't forget to encode the value.
+                builder.append(encode(queryParameterEntry.getValue().toString()));
+                if (iterator.hasNext()) {
+                    builder.append('&');
+                }
+            }
+        }
+
+        return builder.toString();
+    }
+
+    private static String pathEncode(String s, boolean canSpreadOnSeveralSegments) {
+        if (!needsEncoding(s)) {
+            return s;
+        }
+        String copy = s;
+        for (Map.Entry<String, String> c : PERCENT_ENCODING_MAP.entrySet()) {
+            if (s.contains(c.getKey())) {
+                if (c.getKey().endsWith("/") && canSpreadOnSeveralSegments) {
+                    // The canSpreadOnSeveralSegments parameter is true when the uri contains + such as in {path+}. In this
+                    // case, we must not convert "/" by the percent value.
+                    continue;
+                }
+                copy = copy.replace(c.getKey(), c.getValue());
+            }
+        }
+        return copy;
+    }
+
+    private static boolean needsEncoding(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (ENCODED_CHARACTERS.indexOf(s.charAt(i)) != -1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String encode(String v) {
+        try {
+            return URLEncoder.encode(v, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            // UTF-8 is part of the JVM specification.
+            throw new IllegalArgumentException("UTF-8 not supported", e);
+        }
+    }
+
+    /**
+     * A placeholder of the url.
+     */
+    private static final class Placeholder {
+        private final String name;
+        private final String raw;
+        private final boolean canSpreadOnSeveralSegments;
+
+        private Placeholder(String content) {
+            this.raw = "{" + content + "}";
+            this.canSpreadOnSeveralSegments = content.endsWith("+");
+            if (canSpreadOnSeveralSegments) {
+                this.name = content.substring(0, content.length() - 1);
+            } else {
+                this.name = content;
+            }
+        }
+    }
+}
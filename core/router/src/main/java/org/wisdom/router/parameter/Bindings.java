@@ -28,6 +28,7 @@ import org.wisdom.api.router.parameters.Source;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Annotation handler's entry point. Notice that the handler are not parsing the annotation but {@link org.wisdom.api
@@ -37,6 +38,11 @@ public class Bindings {
 
     private static final Map<Source, RouteParameterHandler> BINDINGS = new HashMap<>(); //NOSONAR
 
+    /**
+     * Incremented every time a binding is changed, so the pre-resolved handlers can be refreshed.
+     */
+    private static final AtomicInteger VERSION = new AtomicInteger();
+
     static {
         bind(Source.BODY, new BodyHandler());
         bind(Source.PARAMETER, new ParameterHandler());
@@ -59,6 +65,27 @@ public class Bindings {
                     source.name(), handler);
         }
         BINDINGS.put(source, handler);
+        VERSION.incrementAndGet();
+    }
+
+    /**
+     * Gets the version of the bindings. It changes every time {@link #bind(Source, RouteParameterHandler)} is
+     * called, so the handlers retrieved with {@link #handler(Source)} must be looked up again.
+     *
+     * @return the current version
+     */
+    public static int version() {
+        return VERSION.get();
+    }
+
+    /**
+     * Gets the handler associated with the given source.
+     *
+     * @param source the source
+     * @return the handler, {@code null} if the source is not supported
+     */
+    public static RouteParameterHandler handler(Source source) {
+        return BINDINGS.get(source);
     }
 
     /**
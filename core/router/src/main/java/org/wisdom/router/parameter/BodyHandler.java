@@ -23,6 +23,9 @@ import org.wisdom.api.content.ParameterFactories;
 import org.wisdom.api.http.Context;
 import org.wisdom.api.router.parameters.ActionParameter;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 /**
  * The handler managing @Body.
  */
@@ -31,6 +34,14 @@ public class BodyHandler implements RouteParameterHandler {
     @Override
     public Object create(ActionParameter argument, Context context,
                          ParameterFactories engine) {
+        if (argument.getRawType() == InputStream.class) {
+            // Give access to the body as it is (it may be streamed).
+            try {
+                return context.stream();
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Cannot read the request body", e);
+            }
+        }
         return context.body(argument.getRawType(), argument.getGenericType());
     }
 }
@@ -0,0 +1,145 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router;
+
+import org.junit.Test;
+import org.wisdom.api.DefaultController;
+import org.wisdom.api.annotations.Parameter;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.http.Status;
+import org.wisdom.api.router.RouteUtils;
+import org.wisdom.api.router.parameters.Source;
+import org.wisdom.router.parameter.Bindings;
+import org.wisdom.router.parameter.ParameterHandler;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Checks the invocation of action methods.
+ */
+public class ActionInvokerTest {
+
+    public static class MyController extends DefaultController {
+
+        public Result noArgument() {
+            return ok();
+        }
+
+        public Result withArguments(@Parameter("name") String name, @Parameter("count") int count) {
+            return ok(name + count);
+        }
+
+        public Result withLong(@Parameter("value") long value) {
+            return ok(Long.toString(value));
+        }
+
+        public Result failing() {
+            throw new IllegalStateException("bad");
+        }
+    }
+
+    private ActionInvoker invoker(MyController controller, String name, Class<?>... types) throws Exception {
+        Method method = MyController.class.getMethod(name, types);
+        return new ActionInvoker(controller, method, RouteUtils.buildActionParameterList(method));
+    }
+
+    @Test
+    public void testInvocationWithoutArguments() throws Exception {
+        MyController controller = new MyController();
+        ActionInvoker invoker = invoker(controller, "noArgument");
+        assertThat(invoker.invoke(new Object[0]).getStatusCode()).isEqualTo(Status.OK);
+    }
+
+    @Test
+    public void testInvocationWithArguments() throws Exception {
+        MyController controller = new MyController();
+        ActionInvoker invoker = invoker(controller, "withArguments", String.class, Integer.TYPE);
+        assertThat(invoker.invoke(new Object[]{"hello", 1}).getRenderable().content()).isEqualTo("hello1");
+    }
+
+    @Test
+    public void testThatBindingsReplacedAfterTheCreationAreUsed() throws Exception {
+        MyController controller = new MyController();
+        ActionInvoker invoker = invoker(controller, "withArguments", String.class, Integer.TYPE);
+        Bindings.bind(Source.PARAMETER, (argument, context, engine) ->
+                argument.getRawType() == Integer.TYPE ? 1 : "replaced");
+        try {
+            assertThat(invoker.bind(null, null)).containsExactly("replaced", 1);
+        } finally {
+            Bindings.bind(Source.PARAMETER, new ParameterHandler());
+        }
+    }
+
+    @Test
+    public void testThatInvalidParametersAreNotReportedAsActionFailures() throws Exception {
+        MyController controller = new MyController();
+        ActionInvoker invoker = invoker(controller, "withArguments", String.class, Integer.TYPE);
+        Object[][] invalid = {
+                {"hello", null},
+                {"hello", "1"},
+                {1, 1},
+                {"hello", 1L},
+                {"hello"}
+        };
+        for (Object[] parameters : invalid) {
+            try {
+                invoker.invoke(parameters);
+                fail("Exception expected");
+            } catch (IllegalArgumentException e) {
+                // Expected, as with reflection.
+            }
+        }
+        assertThat(invoker.invoke(new Object[]{null, 1}).getRenderable().content()).isEqualTo("null1");
+    }
+
+    @Test
+    public void testThatPrimitiveParametersAreWidenedAsWithReflection() throws Exception {
+        MyController controller = new MyController();
+        ActionInvoker invoker = invoker(controller, "withLong", Long.TYPE);
+        assertThat(invoker.invoke(new Object[]{1L}).getRenderable().content()).isEqualTo("1");
+        assertThat(invoker.invoke(new Object[]{2}).getRenderable().content()).isEqualTo("2");
+        assertThat(invoker.invoke(new Object[]{(short) 3}).getRenderable().content()).isEqualTo("3");
+        assertThat(invoker.invoke(new Object[]{'a'}).getRenderable().content()).isEqualTo("97");
+        for (Object invalid : new Object[]{1.0f, 1.0, true}) {
+            try {
+                invoker.invoke(new Object[]{invalid});
+                fail("Exception expected for " + invalid);
+            } catch (IllegalArgumentException e) {
+                // Expected, as with reflection.
+            }
+        }
+    }
+
+    @Test
+    public void testThatExceptionsAreWrapped() throws Exception {
+        MyController controller = new MyController();
+        ActionInvoker invoker = invoker(controller, "failing");
+        try {
+            invoker.invoke(new Object[0]);
+            fail("Exception expected");
+        } catch (InvocationTargetException e) {
+            assertThat(e.getTargetException()).isInstanceOf(IllegalStateException.class).hasMessage("bad");
+        }
+    }
+}
@@ -20,16 +20,26 @@
 package org.wisdom.router;
 
 import org.junit.After;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.wisdom.api.Controller;
 import org.wisdom.api.DefaultController;
 import org.wisdom.api.annotations.Route;
 import org.wisdom.api.http.*;
 import org.wisdom.api.utils.KnownMimeTypes;
+import org.wisdom.test.parents.FakeContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -37,6 +47,7 @@ import static org.mockito.Mockito.when;
  */
 public class NegotiationTest {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(NegotiationTest.class);
 
     private RequestRouter router;
     private Request request;
@@ -76,6 +87,7 @@ public class NegotiationTest {
         router.bindController(controller);
 
         // First request - ask for json
+        when(request.getHeader(HeaderNames.ACCEPT)).thenReturn("application/json");
         when(request.accepts("application/json")).thenReturn(true);
         when(request.accepts("application/xml")).thenReturn(false);
         org.wisdom.api.router.Route route = router.getRouteFor(HttpMethod.GET, "/", request);
@@ -86,6 +98,7 @@ public class NegotiationTest {
 
 
         // Second request - ask for xml
+        when(request.getHeader(HeaderNames.ACCEPT)).thenReturn("application/xml");
         when(request.accepts("application/json")).thenReturn(false);
         when(request.accepts("application/xml")).thenReturn(true);
         route = router.getRouteFor(HttpMethod.GET, "/", request);
@@ -95,6 +108,7 @@ public class NegotiationTest {
         assertThat(result.getContentType()).isEqualTo("application/xml");
 
         // Third request - ask for binary
+        when(request.getHeader(HeaderNames.ACCEPT)).thenReturn(MimeTypes.BINARY);
         when(request.accepts("application/json")).thenReturn(false);
         when(request.accepts("application/xml")).thenReturn(false);
         when(request.accepts(MimeTypes.BINARY)).thenReturn(true);
@@ -163,6 +177,7 @@ public class NegotiationTest {
 
         router.bindController(controller);
 
+        when(request.getHeader(HeaderNames.ACCEPT)).thenReturn("application/json");
         when(request.contentMimeType()).thenReturn("text/plain");
         when(request.accepts("application/json")).thenReturn(true);
         org.wisdom.api.router.Route route = router.getRouteFor(HttpMethod.GET, "/", request);
@@ -170,6 +185,7 @@ public class NegotiationTest {
         assertThat(result.getStatusCode()).isEqualTo(200);
         assertThat(result.getContentType()).isEqualTo("application/json");
 
+        when(request.getHeader(HeaderNames.ACCEPT)).thenReturn("application/xml");
         when(request.contentMimeType()).thenReturn("text/plain");
         when(request.accepts("application/json")).thenReturn(false);
         when(request.accepts("application/xml")).thenReturn(true);
@@ -178,6 +194,7 @@ public class NegotiationTest {
         assertThat(result.getStatusCode()).isEqualTo(200);
         assertThat(result.getContentType()).isEqualTo("application/xml");
 
+        when(request.getHeader(HeaderNames.ACCEPT)).thenReturn("application/json");
         when(request.contentMimeType()).thenReturn("text/foo");
         when(request.accepts("application/json")).thenReturn(true);
         when(request.accepts("application/xml")).thenReturn(false);
@@ -185,6 +202,7 @@ public class NegotiationTest {
         result = route.invoke();
         assertThat(result.getStatusCode()).isEqualTo(Status.NOT_ACCEPTABLE);
 
+        when(request.getHeader(HeaderNames.ACCEPT)).thenReturn("application/xml");
         when(request.contentMimeType()).thenReturn(MimeTypes.BINARY);
         when(request.accepts("application/json")).thenReturn(false);
         when(request.accepts("application/xml")).thenReturn(true);
@@ -192,6 +210,7 @@ public class NegotiationTest {
         result = route.invoke();
         assertThat(result.getStatusCode()).isEqualTo(Status.UNSUPPORTED_MEDIA_TYPE);
 
+        when(request.getHeader(HeaderNames.ACCEPT)).thenReturn(MimeTypes.BINARY);
         when(request.contentMimeType()).thenReturn(MimeTypes.BINARY);
         when(request.accepts("application/json")).thenReturn(false);
         when(request.accepts("application/xml")).thenReturn(false);
@@ -200,6 +219,7 @@ public class NegotiationTest {
         result = route.invoke();
         assertThat(result.getStatusCode()).isEqualTo(Status.UNSUPPORTED_MEDIA_TYPE);
 
+        when(request.getHeader(HeaderNames.ACCEPT)).thenReturn("application/json");
         when(request.contentMimeType()).thenReturn("text/foo");
         when(request.accepts("application/json")).thenReturn(true);
         when(request.accepts("application/xml")).thenReturn(false);
@@ -207,6 +227,7 @@ public class NegotiationTest {
         result = route.invoke();
         assertThat(result.getStatusCode()).isEqualTo(Status.NOT_ACCEPTABLE);
 
+        when(request.getHeader(HeaderNames.ACCEPT)).thenReturn(MimeTypes.HTML);
         when(request.contentMimeType()).thenReturn("text/foo");
         when(request.accepts("application/json")).thenReturn(false);
         when(request.accepts("application/xml")).thenReturn(false);
@@ -216,6 +237,7 @@ public class NegotiationTest {
         assertThat(result.getStatusCode()).isEqualTo(Status.NOT_ACCEPTABLE);
 
 
+        when(request.getHeader(HeaderNames.ACCEPT)).thenReturn("application/json, application/xml");
         when(request.contentMimeType()).thenReturn("text/plain");
         when(request.accepts("application/json")).thenReturn(true);
         when(request.accepts("application/xml")).thenReturn(true);
@@ -226,4 +248,153 @@ public class NegotiationTest {
 
     }
 
+    @Test
+    public void testThatNegotiationResultsAreReusedAcrossRequests() throws Exception {
+        Controller controller = new DefaultController() {
+
+            @Route(method= HttpMethod.POST, uri="/", accepts = "application/json")
+            public Result json() {
+                return ok("json");
+            }
+
+            @Route(method= HttpMethod.POST, uri="/", accepts = "text/*")
+            public Result text() {
+                return ok("text");
+            }
+        };
+
+        router.bindController(controller);
+
+        // Send more content types than the number of kept results, and check that decisions stay correct.
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 50; j++) {
+                when(request.contentMimeType()).thenReturn("text/type" + j);
+                org.wisdom.api.router.Route route = router.getRouteFor(HttpMethod.POST, "/", request);
+                assertThat(route.getControllerMethod().getName()).isEqualTo("text");
+
+                when(request.contentMimeType()).thenReturn("application/json");
+                route = router.getRouteFor(HttpMethod.POST, "/", request);
+                assertThat(route.getControllerMethod().getName()).isEqualTo("json");
+
+                when(request.contentMimeType()).thenReturn("image/type" + j);
+                route = router.getRouteFor(HttpMethod.POST, "/", request);
+                assertThat(route.isUnbound()).isTrue();
+                assertThat(route.getUnboundStatus()).isEqualTo(Status.UNSUPPORTED_MEDIA_TYPE);
+            }
+        }
+    }
+
+    @Test
+    public void testThatDecisionsAreKeptPerContentTypeAndAcceptHeader() throws Exception {
+        Controller controller = new DefaultController() {
+
+            @Route(method= HttpMethod.GET, uri="/", produces = "application/json")
+            public Result getJson() {
+                return ok("{'foo':'bar'}").json();
+            }
+
+            @Route(method= HttpMethod.GET, uri="/", produces = "application/xml")
+            public Result getXml() {
+                return ok("<foo/>").xml();
+            }
+        };
+
+        router.bindController(controller);
+
+        when(request.contentMimeType()).thenReturn("text/plain");
+        when(request.getHeader(HeaderNames.ACCEPT)).thenReturn("application/xml");
+        when(request.accepts("application/xml")).thenReturn(true);
+        for (int i = 0; i < 10; i++) {
+            assertThat(router.getRouteFor(HttpMethod.GET, "/", request).getControllerMethod().getName())
+                    .isEqualTo("getXml");
+        }
+        // The negotiation ran once, the next requests reused the decision.
+        verify(request, times(1)).accepts("application/xml");
+
+        when(request.getHeader(HeaderNames.ACCEPT)).thenReturn("application/json");
+        when(request.accepts("application/json")).thenReturn(true);
+        assertThat(router.getRouteFor(HttpMethod.GET, "/", request).getControllerMethod().getName())
+                .isEqualTo("getJson");
+
+        // Changing the routes discards the decisions.
+        router.unbindController(controller);
+        assertThat(router.getRouteFor(HttpMethod.GET, "/", request).getUnboundStatus())
+                .isEqualTo(Status.NOT_FOUND);
+    }
+
+    /**
+     * Compares the route selection with and without the kept negotiation decisions. Only runs when the
+     * {@literal router.test.benchmark} system property is set, the number of lookups is set with
+     * {@literal router.test.lookups}.
+     */
+    @Test
+    public void benchmarkNegotiation() throws Exception {
+        Assume.assumeTrue(Boolean.getBoolean("router.test.benchmark"));
+        Controller controller = new DefaultController() {
+
+            @Route(method= HttpMethod.POST, uri="/", accepts = "application/json", produces = "application/json")
+            public Result json() {
+                return ok("json");
+            }
+
+            @Route(method= HttpMethod.POST, uri="/", accepts = "text/*", produces = "text/plain")
+            public Result text() {
+                return ok("text");
+            }
+
+            @Route(method= HttpMethod.POST, uri="/", accepts = "application/xml", produces = "application/xml")
+            public Result xml() {
+                return ok("xml");
+            }
+        };
+        router.bindController(controller);
+        RouteIndex index = new RouteIndex(router.getRoutes());
+
+        String[][] headers = {
+                {"application/json", "application/json"},
+                {"text/plain; charset=utf-8", "text/plain, */*;q=0.8"},
+                {"application/xml", "application/xml"},
+                {"image/png", "application/json"},
+        };
+        List<Request> requests = new ArrayList<>();
+        for (String[] header : headers) {
+            requests.add(new FakeContext()
+                    .setHeader(HeaderNames.CONTENT_TYPE, header[0])
+                    .setHeader(HeaderNames.ACCEPT, header[1])
+                    .request());
+        }
+
+        int lookups = Integer.getInteger("router.test.lookups", 1000000);
+        // Warm up both paths first.
+        negotiate(index, requests, lookups);
+        lookup(requests, lookups);
+
+        long begin = System.nanoTime();
+        negotiate(index, requests, lookups);
+        long uncached = System.nanoTime() - begin;
+
+        begin = System.nanoTime();
+        lookup(requests, lookups);
+        long cached = System.nanoTime() - begin;
+
+        LOGGER.info("{} lookups: {} ms without the kept decisions, {} ms with them", lookups,
+                TimeUnit.NANOSECONDS.toMillis(uncached), TimeUnit.NANOSECONDS.toMillis(cached));
+    }
+
+    private static int negotiate(RouteIndex index, List<Request> requests, int lookups) {
+        int sum = 0;
+        for (int i = 0; i < lookups; i++) {
+            sum += NegotiationCache.compute(index.find(HttpMethod.POST, "/"), requests.get(i % requests.size()));
+        }
+        return sum;
+    }
+
+    private int lookup(List<Request> requests, int lookups) {
+        int sum = 0;
+        for (int i = 0; i < lookups; i++) {
+            sum += router.getRouteFor(HttpMethod.POST, "/", requests.get(i % requests.size())).getUnboundStatus();
+        }
+        return sum;
+    }
+
 }
@@ -87,6 +87,32 @@ public class ReverseRouterTest {
                 "foo@aol.com")).isEqualTo("/foo/w/foo@aol.com");
     }
 
+    @Test
+    public void routeWithPlaceholdersUsedSeveralTimesAndSpecialCharacters() throws Exception {
+        FakeController controller = new FakeController();
+        controller.setRoutes(ImmutableList.of(
+                new RouteBuilder().route(HttpMethod.GET).on("/foo/{id}/bar/{id}/{n<[0-9]+>}").to(controller, "foo")
+        ));
+        router.bindController(controller);
+
+        assertThat(router.getReverseRouteFor(controller, "foo", "id", "a$b")).isEqualTo("/foo/a$b/bar/a$b/{n<[0-9]+>}");
+        // Regex placeholders are not replaced, the value is passed as query parameter.
+        assertThat(router.getReverseRouteFor(controller, "foo", "id", "w", "n", "1"))
+                .isEqualTo("/foo/w/bar/w/{n<[0-9]+>}?n=1");
+    }
+
+    @Test
+    public void theFirstRouteIsUsedWhenSeveralRoutesTargetTheSameMethod() throws Exception {
+        FakeController controller = new FakeController();
+        controller.setRoutes(ImmutableList.of(
+                new RouteBuilder().route(HttpMethod.GET).on("/foo").to(controller, "foo"),
+                new RouteBuilder().route(HttpMethod.POST).on("/bar").to(controller, "foo")
+        ));
+        router.bindController(controller);
+
+        assertThat(router.getReverseRouteFor(controller, "foo")).isEqualTo("/foo");
+    }
+
     @Test
     public void unbindTest() {
         FakeController controller = new FakeController();
@@ -0,0 +1,147 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.wisdom.api.http.HttpMethod;
+import org.wisdom.api.router.Route;
+import org.wisdom.api.router.RouteBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the route index used by the router.
+ */
+public class RouteIndexTest {
+
+    FakeController controller = new FakeController();
+
+    private Route route(HttpMethod method, String uri) {
+        return new RouteBuilder().route(method).on(uri).to(controller, "foo");
+    }
+
+    private List<Route> routes(List<RouteIndex.Match> matches) {
+        List<Route> routes = new ArrayList<>();
+        for (RouteIndex.Match match : matches) {
+            routes.add(match.route());
+        }
+        return routes;
+    }
+
+    @Test
+    public void testStaticRoutes() {
+        Route root = route(HttpMethod.GET, "/");
+        Route foo = route(HttpMethod.GET, "/foo");
+        Route fooBar = route(HttpMethod.GET, "/foo/bar");
+        RouteIndex index = new RouteIndex(ImmutableList.of(root, foo, fooBar));
+
+        assertThat(routes(index.find(HttpMethod.GET, "/"))).containsExactly(root);
+        assertThat(routes(index.find(HttpMethod.GET, "/foo"))).containsExactly(foo);
+        assertThat(routes(index.find(HttpMethod.GET, "/foo/bar"))).containsExactly(fooBar);
+        assertThat(routes(index.find(HttpMethod.GET, "/foo/"))).isEmpty();
+        assertThat(routes(index.find(HttpMethod.GET, "/baz"))).isEmpty();
+        assertThat(routes(index.find(HttpMethod.POST, "/foo"))).isEmpty();
+    }
+
+    @Test
+    public void testPlaceholders() {
+        Route id = route(HttpMethod.GET, "/foo/{id}");
+        Route email = route(HttpMethod.GET, "/foo/{id}/{email}");
+        RouteIndex index = new RouteIndex(ImmutableList.of(id, email));
+
+        assertThat(routes(index.find(HttpMethod.GET, "/foo/1"))).containsExactly(id);
+        assertThat(routes(index.find(HttpMethod.GET, "/foo/1/foo@aol.com"))).containsExactly(email);
+        assertThat(routes(index.find(HttpMethod.GET, "/foo/"))).isEmpty();
+        assertThat(routes(index.find(HttpMethod.GET, "/foo//x"))).isEmpty();
+    }
+
+    @Test
+    public void testRoutesCheckedUsingRegex() {
+        Route regex = route(HttpMethod.GET, "/{type<[0-9]+>}");
+        Route plus = route(HttpMethod.GET, "/assets/{path+}");
+        Route star = route(HttpMethod.GET, "/files/*");
+        Route mixed = route(HttpMethod.GET, "/doc/{name}.html");
+        RouteIndex index = new RouteIndex(ImmutableList.of(regex, plus, star, mixed));
+
+        assertThat(routes(index.find(HttpMethod.GET, "/99"))).containsExactly(regex);
+        assertThat(routes(index.find(HttpMethod.GET, "/xx"))).isEmpty();
+        assertThat(routes(index.find(HttpMethod.GET, "/assets/a/b/c.js"))).containsExactly(plus);
+        assertThat(routes(index.find(HttpMethod.GET, "/assets/"))).isEmpty();
+        assertThat(routes(index.find(HttpMethod.GET, "/files/"))).containsExactly(star);
+        assertThat(routes(index.find(HttpMethod.GET, "/files/a/b"))).containsExactly(star);
+        assertThat(routes(index.find(HttpMethod.GET, "/doc/intro.html"))).containsExactly(mixed);
+        assertThat(routes(index.find(HttpMethod.GET, "/doc/intro.pdf"))).isEmpty();
+    }
+
+    @Test
+    public void testThatPathParametersAreCaptured() {
+        Route email = route(HttpMethod.GET, "/foo/{id}/x/{email}");
+        Route plus = route(HttpMethod.GET, "/assets/{id}/{path+}");
+        RouteIndex index = new RouteIndex(ImmutableList.of(email, plus));
+
+        Map<String, String> parameters = index.find(HttpMethod.GET, "/foo/1/x/foo@aol.com").get(0).parameters();
+        assertThat(parameters).hasSize(2).containsEntry("id", "1").containsEntry("email", "foo@aol.com");
+        assertThat(parameters).isEqualTo(email.getPathParametersEncoded("/foo/1/x/foo@aol.com"));
+
+        parameters = index.find(HttpMethod.GET, "/assets/1/a/b%20c.js").get(0).parameters();
+        assertThat(parameters).hasSize(2).containsEntry("id", "1").containsEntry("path", "a/b%20c.js");
+    }
+
+    @Test
+    public void testOrdering() {
+        Route all = route(HttpMethod.GET, "/foo/*");
+        Route id = route(HttpMethod.GET, "/foo/{id}");
+        Route bar = route(HttpMethod.GET, "/foo/bar");
+        RouteIndex index = new RouteIndex(ImmutableList.of(all, id, bar));
+
+        // Exact match first, then the registration order.
+        assertThat(routes(index.find(HttpMethod.GET, "/foo/bar"))).containsExactly(bar, all, id);
+        assertThat(routes(index.find(HttpMethod.GET, "/foo/baz"))).containsExactly(all, id);
+    }
+
+    @Test
+    public void testThatTheIndexGivesTheSameResultsAsTheRegex() {
+        List<Route> routes = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            routes.add(route(HttpMethod.GET, "/api/" + i + "/items"));
+            routes.add(route(HttpMethod.GET, "/api/" + i + "/items/{id}"));
+            routes.add(route(HttpMethod.POST, "/api/" + i + "/items/{id}/{path+}"));
+        }
+        RouteIndex index = new RouteIndex(routes);
+
+        String[] paths = {"/api/3/items", "/api/3/items/12", "/api/3/items/12/a/b", "/api/49/items/x", "/api/50/items"};
+        for (HttpMethod method : new HttpMethod[]{HttpMethod.GET, HttpMethod.POST}) {
+            for (String path : paths) {
+                List<Route> expected = new ArrayList<>();
+                for (Route route : routes) {
+                    if (route.matches(method, path)) {
+                        expected.add(route);
+                    }
+                }
+                assertThat(routes(index.find(method, path))).containsExactly(expected.toArray(new Route[expected.size()]));
+            }
+        }
+    }
+}
@@ -34,11 +34,13 @@ import org.wisdom.api.interception.Interceptor;
 import org.wisdom.api.interception.RequestContext;
 import org.wisdom.api.router.Route;
 import org.wisdom.api.router.RouteBuilder;
+import org.wisdom.api.router.RouteMatch;
 import org.wisdom.test.parents.FakeConfiguration;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Random;
 import java.util.concurrent.CountDownLatch;
@@ -165,6 +167,20 @@ public class RouterTest {
         assertThat(route.getPathParametersEncoded("/foo/test").get("id")).isEqualToIgnoringCase("test");
     }
 
+    @Test
+    public void matchCarriesThePathParameters() throws Exception {
+        FakeController controller = new FakeController();
+        controller.setRoutes(ImmutableList.of(
+                new RouteBuilder().route(HttpMethod.GET).on("/foo/{id}").to(controller, "foo")
+        ));
+        router.bindController(controller);
+
+        RouteMatch match = router.match(HttpMethod.GET, "/foo/test", request);
+        assertThat(match.route().isUnbound()).isFalse();
+        assertThat(match.pathParameters()).containsEntry("id", "test");
+        assertThat(router.match(HttpMethod.GET, "/bar", request).route().isUnbound()).isTrue();
+    }
+
     @Test
     public void routeWithTwoPathParameters() throws Exception {
         FakeController controller = new FakeController();
@@ -250,6 +266,84 @@ public class RouterTest {
 
     }
 
+    @Test
+    public void testThatGetRoutesReturnsASnapshot() {
+        FakeController controller = new FakeController();
+        controller.setRoutes(ImmutableList.of(
+                new RouteBuilder().route(HttpMethod.GET).on("/foo").to(controller, "foo")
+        ));
+        Collection<Route> before = router.getRoutes();
+        router.bindController(controller);
+        Collection<Route> after = router.getRoutes();
+
+        assertThat(before).isEmpty();
+        assertThat(after).hasSize(1);
+        // Reading twice without modification returns the same snapshot.
+        assertThat(router.getRoutes()).isSameAs(after);
+
+        router.unbindController(controller);
+        assertThat(after).hasSize(1);
+        assertThat(router.getRoutes()).isEmpty();
+    }
+
+    @Test
+    public void testControllersBoundInARow() {
+        FakeController controller1 = new FakeController();
+        controller1.setRoutes(ImmutableList.of(
+                new RouteBuilder().route(HttpMethod.GET).on("/foo").to(controller1, "foo"),
+                new RouteBuilder().route(HttpMethod.POST).on("/foo").to(controller1, "bar")
+        ));
+        FakeController controller2 = new FakeController();
+        controller2.setRoutes(ImmutableList.of(
+                new RouteBuilder().route(HttpMethod.GET).on("/bar").to(controller2, "bar")
+        ));
+        // Conflicts with the first controller, so is ignored.
+        FakeController controller3 = new FakeController();
+        controller3.setRoutes(ImmutableList.of(
+                new RouteBuilder().route(HttpMethod.GET).on("/baz").to(controller3, "bar"),
+                new RouteBuilder().route(HttpMethod.GET).on("/foo").to(controller3, "foo")
+        ));
+
+        router.bindController(controller1);
+        router.bindController(controller2);
+        router.bindController(controller3);
+
+        assertThat(router.getRoutes()).hasSize(3);
+        assertThat(router.getRouteFor(HttpMethod.GET, "/foo", request).getControllerObject()).isEqualTo(controller1);
+        assertThat(router.getRouteFor(HttpMethod.POST, "/foo", request).getControllerObject()).isEqualTo(controller1);
+        assertThat(router.getRouteFor(HttpMethod.GET, "/bar", request).getControllerObject()).isEqualTo(controller2);
+        assertThat(router.getRouteFor(HttpMethod.GET, "/baz", request).isUnbound()).isTrue();
+
+        // Once the first controller has left, the conflicting controller can be bound.
+        router.unbindController(controller1);
+        router.bindController(controller3);
+        assertThat(router.getRoutes()).hasSize(3);
+        assertThat(router.getRouteFor(HttpMethod.GET, "/foo", request).getControllerObject()).isEqualTo(controller3);
+    }
+
+    @Test
+    public void testConcurrentControllerRegistration() throws InterruptedException {
+        int count = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch done = new CountDownLatch(count);
+        for (int i = 0; i < count; i++) {
+            final int index = i;
+            executor.execute(() -> {
+                FakeController controller = new FakeController();
+                controller.setRoutes(ImmutableList.of(
+                        new RouteBuilder().route(HttpMethod.GET).on("/foo/" + index).to(controller, "foo")
+                ));
+                router.bindController(controller);
+                // The routes are published when the bind method returns.
+                assertThat(router.getRouteFor(HttpMethod.GET, "/foo/" + index, request).isUnbound()).isFalse();
+                done.countDown();
+            });
+        }
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        executor.shutdownNow();
+        assertThat(router.getRoutes()).hasSize(count);
+    }
+
     @Test
     public void testBindAndUnbindFilters() {
         Filter filter = new Filter() {
@@ -464,6 +558,40 @@ public class RouterTest {
         assertThat(result.getHeaders().get(HeaderNames.VARY)).isNull();
     }
 
+    @Test
+    public void testThatTheChainIsUpdatedWhenFiltersArriveAndLeave() throws Exception {
+        FakeController controller = new FakeController();
+        controller.setRoutes(ImmutableList.of(
+                new RouteBuilder().route(HttpMethod.GET).on("/foo").to(controller, "foo")
+        ));
+        router.bindController(controller);
+
+        Route actual = router.getRouteFor(HttpMethod.GET, "/foo", request);
+        assertThat(actual.invoke().getStatusCode()).isEqualTo(Status.CREATED);
+
+        Filter filter = new Filter() {
+            @Override
+            public Result call(Route route, RequestContext context) throws Exception {
+                return Results.status(Status.ACCEPTED);
+            }
+
+            @Override
+            public Pattern uri() {
+                return Pattern.compile("/foo");
+            }
+
+            @Override
+            public int priority() {
+                return 100;
+            }
+        };
+        router.bindFilter(filter);
+        assertThat(actual.invoke().getStatusCode()).isEqualTo(Status.ACCEPTED);
+
+        router.unbindFilter(filter);
+        assertThat(actual.invoke().getStatusCode()).isEqualTo(Status.CREATED);
+    }
+
     @Test
     public void testWeGetNotAcceptableWhenTheAcceptedTypeAreNotAccepted() throws Exception {
         FakeController controller = new FakeController();
@@ -0,0 +1,43 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks action methods reading the request body while it's received, instead of once it has been read completely.
+ * The action method is invoked as soon as the request headers are received, and reads the body from
+ * {@link org.wisdom.api.http.Context#stream()} (or from an {@link java.io.InputStream} parameter annotated with
+ * {@link Body}). The reception is paused when the action method does not read the body fast enough, so the body is
+ * never held entirely in memory, and the {@literal request.body.max.size} limit does not apply.
+ * <p>
+ * The action method is always invoked on a worker thread, as reading the stream blocks. Form and multipart
+ * requests are not streamed.
+ * <p>
+ * This annotation is retrieved and analyzed at runtime (by the engine).
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface StreamedBody {
+
+}
@@ -23,11 +23,12 @@ import org.wisdom.api.http.*;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 /**
  * Empty body.
  */
-public class NoHttpBody implements Renderable<Void> {
+public class NoHttpBody implements BufferRenderable<Void> {
 
     /**
      * The singleton instance.
@@ -56,6 +57,11 @@ public class NoHttpBody implements Renderable<Void> {
         return new ByteArrayInputStream(EMPTY);
     }
 
+    @Override
+    public ByteBuffer renderAsBuffer(Context context, Result result) throws RenderableException {
+        return ByteBuffer.wrap(EMPTY);
+    }
+
     @Override
     public long length() {
         return 0;
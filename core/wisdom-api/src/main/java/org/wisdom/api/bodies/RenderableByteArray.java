@@ -20,19 +20,21 @@
 package org.wisdom.api.bodies;
 
 import org.wisdom.api.http.Context;
+import org.wisdom.api.http.BufferRenderable;
 import org.wisdom.api.http.Renderable;
 import org.wisdom.api.http.RenderableException;
 import org.wisdom.api.http.Result;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 /**
  * A renderable object for byte array.
  *
  * @author <a href="http://escoffier.me">Clement Escoffier</a>
  */
-public class RenderableByteArray implements Renderable<byte[]> {
+public class RenderableByteArray implements BufferRenderable<byte[]> {
 
     private final byte[] bytes;
     private final boolean mustBeChunked;
@@ -73,6 +75,19 @@ public class RenderableByteArray implements Renderable<byte[]> {
         return new ByteArrayInputStream(bytes);
     }
 
+    /**
+     * Renders the wrapped array as a byte buffer.
+     *
+     * @param context the HTTP context
+     * @param result  the result having built this renderable object
+     * @return a buffer wrapping the array, the array is not copied.
+     * @throws RenderableException if something bad happened
+     */
+    @Override
+    public ByteBuffer renderAsBuffer(Context context, Result result) throws RenderableException {
+        return ByteBuffer.wrap(bytes);
+    }
+
     /**
      * @return as the length of the byte array
      */
@@ -28,11 +28,12 @@ import org.wisdom.api.http.*;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 /**
  * A renderable object taking an ObjectNode as parameter.
  */
-public class RenderableJson implements Renderable<JsonNode> {
+public class RenderableJson implements BufferRenderable<JsonNode> {
 
     private static ObjectWriter OBJECT_WRITER = new ObjectMapper().writer().withDefaultPrettyPrinter();
 
@@ -56,6 +57,14 @@ public class RenderableJson implements Renderable<JsonNode> {
         return new ByteArrayInputStream(rendered);
     }
 
+    @Override
+    public ByteBuffer renderAsBuffer(Context context, Result result) throws RenderableException {
+        if (rendered == null) {
+            render();
+        }
+        return ByteBuffer.wrap(rendered);
+    }
+
     /**
      * Renders the JSON object as a byte array. Be aware that this method does not use the {@link org.wisdom.api
      * .content.Json} service.
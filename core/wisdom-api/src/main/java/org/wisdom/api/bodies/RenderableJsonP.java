@@ -29,6 +29,7 @@ import org.wisdom.api.http.*;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 /**
  * A renderable object providing a JSONP response.
@@ -49,7 +50,7 @@ import java.io.InputStream;
  *   foo({...});
  * </pre>
  */
-public class RenderableJsonP implements Renderable<String> {
+public class RenderableJsonP implements BufferRenderable<String> {
 
     private static final ObjectWriter OBJECT_WRITER = new ObjectMapper().writer().withDefaultPrettyPrinter();
 
@@ -76,6 +77,14 @@ public class RenderableJsonP implements Renderable<String> {
         return new ByteArrayInputStream(rendered);
     }
 
+    @Override
+    public ByteBuffer renderAsBuffer(Context context, Result result) throws RenderableException {
+        if (rendered == null) {
+            _render();
+        }
+        return ByteBuffer.wrap(rendered);
+    }
+
     private void _render() throws RenderableException {
         try {
             rendered = (padding + "(" + OBJECT_WRITER.writeValueAsString(node) + ");").getBytes(Charsets.UTF_8);
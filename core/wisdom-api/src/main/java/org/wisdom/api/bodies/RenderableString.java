@@ -25,13 +25,14 @@ import org.wisdom.api.http.*;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.StringWriter;
+import java.nio.ByteBuffer;
 
 /**
  * A renderable object holding a String content. However Strings can be used to store many different content such as
  * HTML, plain text... So the mime-type should be specified. Notice that if the mime-type of the content is not
  * specified, {@literal text/html} is used.
  */
-public class RenderableString implements Renderable<String> {
+public class RenderableString implements BufferRenderable<String> {
 
     /**
      * The rendered content.
@@ -126,21 +127,34 @@ public class RenderableString implements Renderable<String> {
      */
     @Override
     public InputStream render(Context context, Result result) throws RenderableException {
-        byte[] bytes;
+        return new ByteArrayInputStream(encode(result));
+    }
 
+    /**
+     * Retrieves the content as a byte buffer.
+     *
+     * @param context the HTTP context
+     * @param result  the result having built this renderable object
+     * @return a buffer wrapping the encoded String.
+     * @throws RenderableException should not happen
+     */
+    @Override
+    public ByteBuffer renderAsBuffer(Context context, Result result) throws RenderableException {
+        return ByteBuffer.wrap(encode(result));
+    }
+
+    private byte[] encode(Result result) {
         // We have a result, charset have to be provided
         if (result != null) {
             if (result.getCharset() == null) {
                 // No charset provided, use default encoding (UTF-8).
                 result.with(Charsets.UTF_8);
             }
-            bytes = rendered.getBytes(result.getCharset());
+            return rendered.getBytes(result.getCharset());
         } else {
             //No Result, use the default encoding
-            bytes = rendered.getBytes(Charsets.UTF_8);
+            return rendered.getBytes(Charsets.UTF_8);
         }
-
-        return new ByteArrayInputStream(bytes);
     }
 
     /**
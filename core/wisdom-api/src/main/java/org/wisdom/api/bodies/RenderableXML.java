@@ -33,11 +33,12 @@ import javax.xml.transform.stream.StreamResult;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.StringWriter;
+import java.nio.ByteBuffer;
 
 /**
  * A renderable object taking an Document as parameter.
  */
-public class RenderableXML implements Renderable<Document> {
+public class RenderableXML implements BufferRenderable<Document> {
 
     private final Document document;
     private byte[] rendered;
@@ -58,6 +59,14 @@ public class RenderableXML implements Renderable<Document> {
         return new ByteArrayInputStream(rendered);
     }
 
+    @Override
+    public ByteBuffer renderAsBuffer(Context context, Result result) throws RenderableException {
+        if (rendered == null) {
+            render();
+        }
+        return ByteBuffer.wrap(rendered);
+    }
+
     private void render() throws RenderableException {
         try {
             StringWriter sw = new StringWriter();
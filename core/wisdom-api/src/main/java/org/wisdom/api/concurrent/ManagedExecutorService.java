@@ -47,6 +47,14 @@ public interface ManagedExecutorService extends ListeningExecutorService {
      */
     String SYSTEM = "wisdom-system-executor";
 
+    /**
+     * A special name used by the executor running the action methods. It's distinct from the system executor, so
+     * blocking actions cannot starve the tasks submitted by Wisdom itself.
+     *
+     * @since 0.10
+     */
+    String ACTIONS = "wisdom-actions-executor";
+
     /**
      * The type of thread to use
      */
@@ -23,8 +23,11 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.Iterators;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.Iterator;
 
 /**
  * A service interface used to handle Json objects and String.
@@ -92,6 +95,29 @@ public interface Json {
      */
     public JsonNode parse(InputStream stream);
 
+    /**
+     * Reads the given Input Stream containing a Json array, and maps its elements one at a time while iterating.
+     * Unlike {@link #parse(InputStream)}, the array is not loaded entirely in memory, so it can be used on large
+     * streamed request bodies.
+     * <p>
+     * The default implementation parses the whole array with {@link #parse(InputStream)}, and maps the elements
+     * using {@link #fromJson(JsonNode, Class)}. Implementations should override it to read the stream incrementally.
+     *
+     * @param stream the stream, it must contain a Json array, non null
+     * @param clazz  the class of the elements
+     * @param <A>    the type of the elements
+     * @return the iterator on the elements, it throws a {@link RuntimeException} if an element cannot be read
+     * @throws IOException if the stream does not start with a Json array
+     * @since 0.10
+     */
+    public default <A> Iterator<A> fromJsonArray(InputStream stream, Class<A> clazz) throws IOException {
+        JsonNode array = parse(stream);
+        if (array == null || !array.isArray()) {
+            throw new IOException("The stream does not contain a Json array");
+        }
+        return Iterators.transform(array.elements(), element -> fromJson(element, clazz));
+    }
+
     /**
      * @return a new object node.
      */
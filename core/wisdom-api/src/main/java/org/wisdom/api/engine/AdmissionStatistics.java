@@ -0,0 +1,59 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.engine;
+
+/**
+ * A service interface exposed by the engines to monitor the requests in progress. Engines can limit the number of
+ * requests processed concurrently: requests arriving when the limit is reached are rejected.
+ *
+ * @since 0.10
+ */
+public interface AdmissionStatistics {
+
+    /**
+     * Gets the maximum number of requests processed concurrently. When the limit is adaptive, this is the current
+     * limit.
+     *
+     * @return the limit, {@literal -1} if the number of requests is not limited
+     */
+    int getConcurrencyLimit();
+
+    /**
+     * Gets the number of requests being processed.
+     *
+     * @return the number of requests in progress, including the responses being streamed
+     */
+    int getInFlightRequests();
+
+    /**
+     * Gets the number of requests rejected because the limit was reached.
+     *
+     * @return the number of rejected requests since the start of the engine
+     */
+    long getRejectedRequests();
+
+    /**
+     * Checks whether the engine is draining, i.e. it's stopping and waits for the requests in progress to complete.
+     * Requests are still served while draining, but the connections are not reused.
+     *
+     * @return {@code true} if the engine is draining
+     */
+    boolean isDraining();
+}
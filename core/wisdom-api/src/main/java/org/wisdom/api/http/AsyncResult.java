@@ -20,6 +20,7 @@
 package org.wisdom.api.http;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 /**
  * An extension of result instructing the engine to render the result asynchronously. That means that the result
@@ -33,6 +34,11 @@ public class AsyncResult extends Result {
      */
     private final Callable<Result> callable;
 
+    /**
+     * The maximum amount of time to compute the result in milliseconds, {@literal 0} if not set.
+     */
+    private long timeout;
+
     /**
      * Creates a new asynchronous result.
      *
@@ -49,4 +55,27 @@ public class AsyncResult extends Result {
     public Callable<Result> callable() {
         return callable;
     }
+
+    /**
+     * Sets the maximum amount of time to compute the result. If the result is not computed in time, the computation
+     * is cancelled, and a {@literal Gateway Timeout} error is returned to the client. When not set, the engine's
+     * default timeout is used (if any).
+     *
+     * @param timeout the timeout, {@literal 0} to use the engine's default
+     * @param unit    the time unit
+     * @return the current async result
+     * @since 0.10
+     */
+    public AsyncResult withTimeout(long timeout, TimeUnit unit) {
+        this.timeout = unit.toMillis(timeout);
+        return this;
+    }
+
+    /**
+     * @return the maximum amount of time to compute the result in milliseconds, {@literal 0} if not set.
+     * @since 0.10
+     */
+    public long getTimeout() {
+        return timeout;
+    }
 }
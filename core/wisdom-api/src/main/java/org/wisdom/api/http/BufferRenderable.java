@@ -0,0 +1,44 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.http;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link Renderable} whose content is available in memory. Instead of reading the stream returned by
+ * {@link #render(Context, Result)}, the server can send the buffer returned by {@link #renderAsBuffer(Context,
+ * Result)} directly, avoiding the copy of the content.
+ *
+ * @param <T> the type of content.
+ * @since 0.10
+ */
+public interface BufferRenderable<T> extends Renderable<T> {
+
+    /**
+     * Retrieves the rendered content as a byte buffer. The buffer may wrap the internal state of the renderable
+     * object, so it must not be modified by the caller.
+     *
+     * @param context the HTTP context
+     * @param result  the result having built this renderable object
+     * @return the buffer containing the content, positioned at the beginning of the content.
+     * @throws RenderableException if the content cannot be rendered
+     */
+    ByteBuffer renderAsBuffer(Context context, Result result) throws RenderableException;
+}
@@ -26,7 +26,9 @@ import org.wisdom.api.cookies.SessionCookie;
 import org.wisdom.api.router.Route;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Type;
 import java.util.Collection;
 import java.util.List;
@@ -332,6 +334,22 @@ public interface Context {
      */
     BufferedReader reader() throws IOException;
 
+    /**
+     * Gets the request body as stream. For action methods annotated with
+     * {@link org.wisdom.api.annotations.StreamedBody}, the stream reads the body while it's received (and so may
+     * block). Otherwise, it reads the body already received.
+     * <p>
+     * The default implementation reads the body returned by {@link #raw()}, so it does not support streamed bodies.
+     *
+     * @return the stream, empty if the request has no body
+     * @throws IOException if the body cannot be read
+     * @since 0.10
+     */
+    default InputStream stream() throws IOException {
+        byte[] raw = raw();
+        return new ByteArrayInputStream(raw == null ? new byte[0] : raw);
+    }
+
     /**
      * Get the route for this context.
      *
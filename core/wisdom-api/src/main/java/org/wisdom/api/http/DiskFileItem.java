@@ -0,0 +1,51 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.http;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A {@link FileItem} written to disk while it's uploaded. The content digest and size are computed during the
+ * upload, so they don't require reading the file again. The file can be moved to its final location, which is a
+ * simple rename when the destination is on the same file system.
+ *
+ * @since 0.10
+ */
+public interface DiskFileItem extends FileItem {
+
+    /**
+     * Gets the digest of the uploaded content.
+     *
+     * @return the SHA-256 digest of the content, as lower case hexadecimal string
+     */
+    String hash();
+
+    /**
+     * Moves the uploaded file to the given location. The file is renamed if possible, and copied otherwise. Once
+     * moved, the file is not deleted when the request completes, and the other methods of this object use the new
+     * location.
+     *
+     * @param destination the destination file, replaced if it already exists
+     * @return the destination file
+     * @throws IOException if the file cannot be moved
+     */
+    File moveTo(File destination) throws IOException;
+}
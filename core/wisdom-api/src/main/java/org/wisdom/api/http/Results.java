@@ -23,11 +23,14 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.base.Preconditions;
 import org.w3c.dom.Document;
 import org.wisdom.api.bodies.*;
+import org.wisdom.api.http.sse.EventStream;
+import org.wisdom.api.http.sse.EventStreamResult;
 
 import java.io.File;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.concurrent.Callable;
+import java.util.function.Consumer;
 
 
 /**
@@ -491,4 +494,16 @@ public abstract class Results {
         return new AsyncResult(task);
     }
 
+    /**
+     * Creates a new Server-Sent Events result. The connection is kept open, and the given handler receives the
+     * stream used to push the events once the response headers are sent.
+     *
+     * @param handler the handler receiving the event stream, called on the engine's thread so must not block.
+     * @return the event stream result.
+     * @since 0.10
+     */
+    public static EventStreamResult eventStream(Consumer<EventStream> handler) {
+        return new EventStreamResult(handler);
+    }
+
 }
@@ -0,0 +1,105 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.http.sse;
+
+/**
+ * A stream of Server-Sent Events sent to a client. Instances are given by the engine to the handler of an
+ * {@link EventStreamResult} once the response headers have been sent.
+ * <p>
+ * The methods can be called from any thread, they never block: events are written asynchronously, in order. The
+ * engine only keeps a bounded number of events waiting to be written. When the client reads slowly, the stream
+ * becomes non-writable and the events sent in the meantime are dropped. Publishers should check
+ * {@link #isWritable()} and resume using {@link #onWritable(Runnable)}.
+ *
+ * @since 0.10
+ */
+public interface EventStream {
+
+    /**
+     * Sends an event containing the given data.
+     *
+     * @param data the data, may contain several lines
+     * @return {@code true} if the event has been queued, {@code false} if it has been dropped because the stream is
+     * closed or not writable
+     */
+    boolean send(String data);
+
+    /**
+     * Sends a named event containing the given data.
+     *
+     * @param event the event name, {@code null} for the default {@literal message} event, must not contain line
+     *              breaks
+     * @param data  the data, may contain several lines
+     * @return {@code true} if the event has been queued, {@code false} if it has been dropped because the stream is
+     * closed or not writable
+     * @throws IllegalArgumentException if the event name contains a line break
+     */
+    boolean send(String event, String data);
+
+    /**
+     * Sends a named event containing the given data, with an identifier. Clients send the identifier of the last
+     * received event (using the {@literal Last-Event-ID} header) when they reconnect.
+     *
+     * @param id    the event identifier, {@code null} if none, must not contain line breaks or NUL characters
+     * @param event the event name, {@code null} for the default {@literal message} event, must not contain line
+     *              breaks
+     * @param data  the data, may contain several lines
+     * @return {@code true} if the event has been queued, {@code false} if it has been dropped because the stream is
+     * closed or not writable
+     * @throws IllegalArgumentException if the identifier or the event name contains a line break, or if the
+     *                                  identifier contains a NUL character
+     */
+    boolean send(String id, String event, String data);
+
+    /**
+     * Checks whether events can be sent without being dropped.
+     *
+     * @return {@code true} if the stream is open and the client reads the events fast enough
+     */
+    boolean isWritable();
+
+    /**
+     * Sets the handler called (on the engine's thread) when the stream becomes writable again after having been
+     * non-writable.
+     *
+     * @param handler the handler, {@code null} to remove the current one
+     * @return the current stream
+     */
+    EventStream onWritable(Runnable handler);
+
+    /**
+     * Adds a handler called when the stream is closed, either by the client, by the application, or because the
+     * engine stops.
+     *
+     * @param handler the handler
+     * @return the current stream
+     */
+    EventStream onClose(Runnable handler);
+
+    /**
+     * Closes the stream. The events sent before are written first.
+     */
+    void close();
+
+    /**
+     * @return whether or not the stream is closed.
+     */
+    boolean isClosed();
+}
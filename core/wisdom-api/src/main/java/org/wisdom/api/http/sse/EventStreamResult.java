@@ -0,0 +1,84 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.http.sse;
+
+import org.wisdom.api.http.Result;
+import org.wisdom.api.http.Status;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * An extension of result instructing the engine to keep the connection open and to send Server-Sent Events
+ * ({@literal text/event-stream}). Once the response headers are sent, the handler receives the {@link EventStream}
+ * used to push the events. Unlike chunked streams, no thread is used while the stream is idle.
+ *
+ * @since 0.10
+ */
+public class EventStreamResult extends Result {
+
+    /**
+     * The handler receiving the stream.
+     */
+    private final Consumer<EventStream> handler;
+
+    /**
+     * The delay between two heartbeats in milliseconds, {@literal 0} to use the engine's default.
+     */
+    private long heartbeat;
+
+    /**
+     * Creates a new event stream result.
+     *
+     * @param handler the handler receiving the stream once opened, must not be {@literal null}. It's called on
+     *                the engine's thread, so must not block.
+     */
+    public EventStreamResult(Consumer<EventStream> handler) {
+        super(Status.OK);
+        this.handler = handler;
+    }
+
+    /**
+     * @return the handler receiving the stream.
+     */
+    public Consumer<EventStream> handler() {
+        return handler;
+    }
+
+    /**
+     * Sets the delay between two heartbeats. A heartbeat (a comment line) is sent when no event has been sent
+     * during this delay, so the proxies don't close the connection. When not set, the engine's default is used.
+     *
+     * @param delay the delay, {@literal 0} to use the engine's default
+     * @param unit  the time unit
+     * @return the current result
+     */
+    public EventStreamResult withHeartbeat(long delay, TimeUnit unit) {
+        this.heartbeat = unit.toMillis(delay);
+        return this;
+    }
+
+    /**
+     * @return the delay between two heartbeats in milliseconds, {@literal 0} if not set.
+     */
+    public long getHeartbeat() {
+        return heartbeat;
+    }
+}
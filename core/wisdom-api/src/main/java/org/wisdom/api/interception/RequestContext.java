@@ -41,9 +41,9 @@ public class RequestContext {
     private final Route route;
 
     /**
-     * The filter chain.
+     * The filter chain, ending with the action invoker.
      */
-    private final List<Filter> chain;
+    private final Filter[] chain;
 
     /**
      * The map storing the configuration for interceptors.
@@ -56,9 +56,9 @@ public class RequestContext {
     private Object[] parameters;
 
     /**
-     * The iterator to retrieve the ordered set of filters.
+     * The index of the next filter to call.
      */
-    private ListIterator<Filter> iterator;
+    private int index;
 
     /**
      * Creates a new Interception Context. Instances should only be created by the router.
@@ -73,7 +73,7 @@ public class RequestContext {
         this.route = route;
         this.interceptors = interceptors;
 
-        this.chain = new LinkedList<>(chain);
+        this.chain = chain.toArray(new Filter[chain.size() + 1]);
         if (parameters != null) {
             this.parameters = Arrays.copyOf(parameters, parameters.length);
         }
@@ -82,7 +82,22 @@ public class RequestContext {
         if (endOfChainInvoker == null) {
             endOfChainInvoker = new ActionInvoker();
         }
-        this.chain.add(endOfChainInvoker);
+        this.chain[chain.size()] = endOfChainInvoker;
+    }
+
+    /**
+     * Creates a new Interception Context from a pre-computed chain. Instances should only be created by the router.
+     * The given array is not copied, so can be shared between requests, but must not be modified.
+     *
+     * @param route        the intercepted route
+     * @param chain        the ordered interception chain containing filters and interceptors. The last element must be
+     *                     the filter invoking the action method.
+     * @param interceptors the set of interceptors and their configuration
+     */
+    public RequestContext(Route route, Filter[] chain, Map<Interceptor<?>, Object> interceptors) {
+        this.route = route;
+        this.interceptors = interceptors;
+        this.chain = chain;
     }
 
     /**
@@ -114,13 +129,10 @@ public class RequestContext {
      * @throws java.lang.Exception if the invocation fails.
      */
     public Result proceed() throws Exception {
-        if (iterator == null) {
-            iterator = chain.listIterator();
-        }
-        if (!iterator.hasNext()) {
+        if (index >= chain.length) {
             throw new IllegalStateException("Reached the end of the chain without result.");
         }
-        Filter filter = iterator.next();
+        Filter filter = chain[index++];
         return filter.call(route, this);
     }
 
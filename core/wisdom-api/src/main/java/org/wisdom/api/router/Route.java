@@ -294,16 +294,36 @@ public class Route {
      * @return A map with all parameters of that uri. Encoded in => encoded out.
      */
     public Map<String, String> getPathParametersEncoded(String uri) {
-        Map<String, String> map = Maps.newHashMap();
         if (regex == null) {
             // Unbound case
-            return map;
+            return Maps.newHashMap();
+        }
+        Map<String, String> map = extractPathParametersEncoded(uri);
+        if (map == null) {
+            return Maps.newHashMap();
+        }
+        return map;
+    }
+
+    /**
+     * Checks whether the given uri matches the route, and extracts the path parameters in the same pass. Like
+     * {@link #getPathParametersEncoded(String)}, this method does not do any decoding / encoding.
+     *
+     * @param uri The whole encoded uri.
+     * @return A map with all parameters of that uri, {@code null} if the uri does not match the route or if the
+     * route is unbound.
+     */
+    public Map<String, String> extractPathParametersEncoded(String uri) {
+        if (regex == null) {
+            return null;
         }
         Matcher m = regex.matcher(uri);
-        if (m.matches()) {
-            for (int i = 1; i < m.groupCount() + 1; i++) {
-                map.put(parameterNames.get(i - 1), m.group(i));
-            }
+        if (!m.matches()) {
+            return null;
+        }
+        Map<String, String> map = Maps.newHashMapWithExpectedSize(m.groupCount());
+        for (int i = 1; i < m.groupCount() + 1; i++) {
+            map.put(parameterNames.get(i - 1), m.group(i));
         }
         return map;
     }
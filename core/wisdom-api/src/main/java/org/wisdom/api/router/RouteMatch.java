@@ -0,0 +1,60 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.router;
+
+import java.util.Map;
+
+/**
+ * The route selected by the router for a request, along with the path parameters captured while selecting it.
+ * Instances are not attached to the request: the engine hands the parameters to the context of the exchange.
+ *
+ * @since 0.10
+ */
+public final class RouteMatch {
+
+    private final Route route;
+    private final Map<String, String> pathParameters;
+
+    /**
+     * Creates a new match.
+     *
+     * @param route          the route, {@literal unbound} if no controller handles the request
+     * @param pathParameters the encoded path parameters, {@code null} if they have not been captured
+     */
+    public RouteMatch(Route route, Map<String, String> pathParameters) {
+        this.route = route;
+        this.pathParameters = pathParameters;
+    }
+
+    /**
+     * @return the route
+     */
+    public Route route() {
+        return route;
+    }
+
+    /**
+     * @return the (encoded) path parameters, {@code null} if the router has not captured them, in this case they
+     * are extracted from the path with {@link Route#getPathParametersEncoded(String)}
+     */
+    public Map<String, String> pathParameters() {
+        return pathParameters;
+    }
+}
@@ -75,6 +75,21 @@ public interface Router {
      */
     Route getRouteFor(HttpMethod method, String uri, Request request);
 
+    /**
+     * Gets the route for the given method and uri, along with the path parameters captured while selecting it.
+     * Unlike {@link #getRouteFor(HttpMethod, String, Request)}, the request is only read, the captured parameters
+     * are returned and not stored anywhere.
+     *
+     * @param method  the method (must be a valid HTTP method)
+     * @param uri     the uri
+     * @param request the incoming request, used to handle negotiation
+     * @return the match, its route is {@literal unbound} if no controller handles the request
+     * @since 0.10
+     */
+    default RouteMatch match(HttpMethod method, String uri, Request request) {
+        return new RouteMatch(getRouteFor(method, uri, request), null);
+    }
+
     /**
      * Gets the url of the route handled by the specified action method.
      *
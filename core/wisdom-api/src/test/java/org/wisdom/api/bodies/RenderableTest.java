@@ -36,6 +36,7 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
 
@@ -252,4 +253,33 @@ public class RenderableTest {
         assertThat(new String(bytes, Charsets.UTF_8)).isEqualTo("a,b,c");
     }
 
+    @Test
+    public void testThatInMemoryBodiesAreRenderedAsBuffers() throws Exception {
+        byte[] array = "hello".getBytes(Charsets.UTF_8);
+        ByteBuffer buffer = new RenderableByteArray(array, false).renderAsBuffer(null, null);
+        // The array is wrapped, not copied.
+        assertThat(buffer.hasArray()).isTrue();
+        assertThat(buffer.array()).isSameAs(array);
+
+        assertThat(NoHttpBody.INSTANCE.renderAsBuffer(null, null).remaining()).isEqualTo(0);
+
+        RenderableString string = new RenderableString("hello");
+        assertThat(toBytes(string.renderAsBuffer(null, null)))
+                .isEqualTo(IOUtils.toByteArray(string.render(null, null)));
+
+        ObjectNode node = new ObjectMapper().createObjectNode().put("hello", "world");
+        RenderableJson json = new RenderableJson(node);
+        assertThat(toBytes(json.renderAsBuffer(null, null))).isEqualTo(IOUtils.toByteArray(json.render(null, null)));
+
+        RenderableObject object = new RenderableObject(Arrays.asList("a", "b", "c"));
+        object.setSerializedForm("a,b,c");
+        assertThat(new String(toBytes(object.renderAsBuffer(null, null)), Charsets.UTF_8)).isEqualTo("a,b,c");
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
 }
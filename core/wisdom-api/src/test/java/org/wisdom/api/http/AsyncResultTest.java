@@ -22,6 +22,7 @@ package org.wisdom.api.http;
 import org.junit.Test;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -41,5 +42,12 @@ public class AsyncResultTest {
 
         assertThat(async.callable()).isNotNull();
         assertThat(async.callable().call().getStatusCode()).isEqualTo(200);
+        assertThat(async.getTimeout()).isEqualTo(0);
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        AsyncResult async = new AsyncResult(Results::ok).withTimeout(2, TimeUnit.SECONDS);
+        assertThat(async.getTimeout()).isEqualTo(2000);
     }
 }
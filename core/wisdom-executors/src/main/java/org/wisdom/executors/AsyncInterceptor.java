@@ -90,6 +90,8 @@ public class AsyncInterceptor extends Interceptor<Async> {
                 throw new HttpException(Result.GATEWAY_TIMEOUT, "Request timeout");
             } catch (InterruptedException e) {
                 LOGGER.debug("Call on {} was interrupted", context.route().getUrl());
+                // The wrapping task has been cancelled, cancel the computation too.
+                task.cancel(true);
                 throw new HttpException(Result.GATEWAY_TIMEOUT, "Request timeout");
             } catch (ExecutionException e) {
                 throw new HttpException(Result.INTERNAL_SERVER_ERROR, "Computation error", e);
@@ -116,18 +118,18 @@ public class AsyncInterceptor extends Interceptor<Async> {
      */
     @Override
     public Result call(final Async configuration, final RequestContext context) throws Exception {
-        Callable<Result> callable;
         if (configuration.timeout() > 0) {
-            callable = new ResultRetriever(context, configuration);
-        } else {
-            callable = new Callable<Result>() {
-                @Override
-                public Result call() throws Exception {
-                    return context.proceed();
-                }
-            };
+            // The engine also enforces the timeout, so the connection is released even if the computation ignores
+            // interruptions.
+            return new AsyncResult(new ResultRetriever(context, configuration))
+                    .withTimeout(configuration.timeout(), configuration.unit());
         }
-        return new AsyncResult(callable);
+        return new AsyncResult(new Callable<Result>() {
+            @Override
+            public Result call() throws Exception {
+                return context.proceed();
+            }
+        });
     }
 
     /**
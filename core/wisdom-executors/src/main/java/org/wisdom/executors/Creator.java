@@ -65,7 +65,7 @@ public class Creator {
     private final Map<ServiceRegistration, ExecutorService> instances = new HashMap<>();
 
     /**
-     * Creates the system executors and the others specified executors.
+     * Creates the system executors, the executor running the action methods, and the others specified executors.
      */
     @Validate
     public void start() {
@@ -73,6 +73,8 @@ public class Creator {
 
         createExecutor(ManagedExecutorService.SYSTEM,
                 conf != null ? conf.getConfiguration("executors." + ManagedExecutorService.SYSTEM) : null);
+        createExecutor(ManagedExecutorService.ACTIONS,
+                conf != null ? conf.getConfiguration("executors." + ManagedExecutorService.ACTIONS) : null);
         createScheduler(ManagedScheduledExecutorService.SYSTEM,
                 conf != null ? conf.getConfiguration("schedulers." + ManagedScheduledExecutorService.SYSTEM) : null);
 
@@ -88,8 +90,9 @@ public class Creator {
         }
         Set<String> keys = executors.asMap().keySet();
         for (String key : keys) {
-            // Skip System (already created).
-            if (!key.equalsIgnoreCase(ManagedExecutorService.SYSTEM)) {
+            // Skip System and Actions (already created).
+            if (!key.equalsIgnoreCase(ManagedExecutorService.SYSTEM)
+                    && !key.equalsIgnoreCase(ManagedExecutorService.ACTIONS)) {
                 Configuration conf = executors.getConfiguration(key);
                 createExecutor(key, conf);
             }
@@ -118,7 +121,7 @@ public class Creator {
 
         } else {
             executor = new ManagedExecutorServiceImpl(
-                    ManagedExecutorService.SYSTEM,
+                    name,
                     ManagedExecutorService.ThreadType.POOLED,
                     60000,
                     5,
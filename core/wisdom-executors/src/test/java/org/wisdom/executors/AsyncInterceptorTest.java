@@ -111,6 +111,8 @@ public class AsyncInterceptorTest {
 
         Result result = interceptor.call(async, rc);
         assertThat(result).isInstanceOf(AsyncResult.class);
+        // The timeout is also given to the engine.
+        assertThat(((AsyncResult) result).getTimeout()).isEqualTo(1000);
 
         final int[] code = {0};
         ManagedFutureTask<Result> r = executor.submit(((AsyncResult) result).callable())
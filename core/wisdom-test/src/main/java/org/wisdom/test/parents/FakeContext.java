@@ -31,8 +31,10 @@ import org.wisdom.api.http.Request;
 import org.wisdom.api.router.Route;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringReader;
 import java.lang.reflect.Type;
 import java.util.*;
@@ -480,6 +482,18 @@ public class FakeContext implements Context {
         return null;
     }
 
+    /**
+     * @return a stream on the byte array of the String form of the body object, empty if no body.
+     */
+    @Override
+    public InputStream stream() {
+        byte[] raw = raw();
+        if (raw != null) {
+            return new ByteArrayInputStream(raw);
+        }
+        return new ByteArrayInputStream(new byte[0]);
+    }
+
     /**
      * Not supported in tests.
      *
@@ -0,0 +1,145 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of requests processed concurrently by a server. Requests arriving when the limit is reached are
+ * rejected right away instead of being queued, so the latency of the admitted requests stays bounded.
+ * <p>
+ * The limit is either fixed, or adaptive. In the latter case, it follows an AIMD (additive increase, multiplicative
+ * decrease) strategy: the limit is increased by one when a request completes under the target latency while the
+ * limit was in use, and reduced by 10% when a request exceeds the target latency.
+ * <p>
+ * Instances are thread-safe, they are shared by the event loops serving the server.
+ */
+final class ConcurrencyLimiter {
+
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final boolean adaptive;
+    private final int maxLimit;
+    private final long targetLatency;
+
+    /**
+     * Creates a limiter.
+     *
+     * @param limit         the (initial) limit, must be positive
+     * @param adaptive      whether or not the limit is adapted to the observed latency
+     * @param maxLimit      the maximum value of the adaptive limit
+     * @param targetLatency the target latency in milliseconds, used when the limit is adaptive
+     */
+    ConcurrencyLimiter(int limit, boolean adaptive, int maxLimit, long targetLatency) {
+        this.limit = new AtomicInteger(limit);
+        this.adaptive = adaptive;
+        this.maxLimit = Math.max(limit, maxLimit);
+        this.targetLatency = TimeUnit.MILLISECONDS.toNanos(targetLatency);
+    }
+
+    /**
+     * Tries to admit a request.
+     *
+     * @return the permit to release once the request is completed, {@code null} if the request is rejected
+     */
+    Permit tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            int max = limit.get();
+            if (current >= max) {
+                rejected.incrementAndGet();
+                return null;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return new Permit(max, current + 1);
+            }
+        }
+    }
+
+    /**
+     * @return the current limit.
+     */
+    int limit() {
+        return limit.get();
+    }
+
+    /**
+     * @return the number of requests being processed.
+     */
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return the number of rejected requests since the creation of the limiter.
+     */
+    long rejected() {
+        return rejected.get();
+    }
+
+    private void onCompletion(Permit permit, long latency) {
+        inFlight.decrementAndGet();
+        if (!adaptive) {
+            return;
+        }
+        if (latency > targetLatency) {
+            // Only the first slow request observed with a given limit decreases it, so a burst of slow requests
+            // does not collapse the limit.
+            int decreased = Math.max(1, (int) (permit.limit * 0.9));
+            limit.compareAndSet(permit.limit, decreased);
+        } else if (permit.inFlight * 2 >= permit.limit) {
+            // The limit was in use, probe for more capacity.
+            int current = limit.get();
+            if (current < maxLimit) {
+                limit.compareAndSet(current, current + 1);
+            }
+        }
+    }
+
+    /**
+     * The right to process a request, to release once the request is completed. Releasing a permit several times
+     * has no effect.
+     */
+    final class Permit {
+        private final long start = System.nanoTime();
+        private final int limit;
+        private final int inFlight;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(int limit, int inFlight) {
+            this.limit = limit;
+            this.inFlight = inFlight;
+        }
+
+        /**
+         * Releases the permit.
+         */
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                onCompletion(this, System.nanoTime() - start);
+            }
+        }
+    }
+}
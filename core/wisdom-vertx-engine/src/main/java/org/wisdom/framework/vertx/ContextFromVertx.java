@@ -40,13 +40,18 @@ import org.wisdom.framework.vertx.file.VertxFileUpload;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.lang.reflect.Type;
 import java.net.URI;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * An implementation of {@link org.wisdom.api.http.Context} for Vert.x.
@@ -62,12 +67,43 @@ public class ContextFromVertx implements Context {
 
 
     private /*not final*/ Route route;
+    /**
+     * The encoded path parameters, captured by the router or extracted lazily.
+     */
+    private Map<String, String> pathParameters;
     /**
      * the request object, created lazily.
      */
     private RequestFromVertx request;
     private io.vertx.core.Context vertxContext;
 
+    /**
+     * The admission permit of the request, {@code null} if the server does not limit the number of requests.
+     */
+    private volatile ConcurrencyLimiter.Permit permit;
+
+    /**
+     * The server tracking the request, {@code null} if not tracked or once notified of the completion.
+     */
+    private final AtomicReference<Server> server = new AtomicReference<>();
+
+    /**
+     * The task computing the result asynchronously, cancelled if the connection is closed before completion.
+     */
+    private volatile Future<?> task;
+
+    /**
+     * The number of tasks of the request running, or about to run, on worker threads. The body, the uploaded files and
+     * the permit of the request are only released, and the server notified of the completion, once the request is
+     * completed and none of its tasks is running anymore.
+     */
+    private final AtomicInteger working = new AtomicInteger();
+
+    /**
+     * Whether the request is completed, i.e. the response has been written or the connection has been closed.
+     */
+    private volatile boolean completed;
+
 
     /**
      * Creates a new context.
@@ -340,8 +376,7 @@ public class ContextFromVertx implements Context {
      */
     @Override
     public String parameterFromPath(String name) {
-        String encodedParameter = route.getPathParametersEncoded(
-                path()).get(name);
+        String encodedParameter = pathParametersEncoded().get(name);
         if (encodedParameter == null) {
             return null;
         } else {
@@ -367,7 +402,31 @@ public class ContextFromVertx implements Context {
      */
     @Override
     public String parameterFromPathEncoded(String name) {
-        return route.getPathParametersEncoded(path()).get(name);
+        return pathParametersEncoded().get(name);
+    }
+
+    /**
+     * Gets the path parameters. The router captures them while selecting the route, so most of the time, they are
+     * just read. Otherwise, they are extracted from the path once.
+     *
+     * @return the encoded path parameters
+     */
+    private Map<String, String> pathParametersEncoded() {
+        Map<String, String> parameters = pathParameters;
+        if (parameters == null) {
+            parameters = route.getPathParametersEncoded(path());
+            pathParameters = parameters;
+        }
+        return parameters;
+    }
+
+    /**
+     * Sets the path parameters captured by the router while selecting the route of this context.
+     *
+     * @param pathParameters the encoded path parameters, {@code null} to extract them from the path when needed
+     */
+    public void pathParameters(Map<String, String> pathParameters) {
+        this.pathParameters = pathParameters;
     }
 
     /**
@@ -519,6 +578,9 @@ public class ContextFromVertx implements Context {
      */
     @Override
     public BufferedReader reader() throws IOException {
+        if (request.getBodyStream() != null) {
+            return IOUtils.toBufferedReader(new InputStreamReader(request.getBodyStream()));
+        }
         byte[] raw = request.getRawBody();
         if (raw != null) {
             return IOUtils.toBufferedReader(new InputStreamReader(new ByteArrayInputStream(raw)));
@@ -526,6 +588,20 @@ public class ContextFromVertx implements Context {
         return null;
     }
 
+    /**
+     * Gets the request body as stream. If the body is streamed, reading the stream blocks until data is received.
+     *
+     * @return the stream
+     */
+    @Override
+    public InputStream stream() {
+        if (request.getBodyStream() != null) {
+            return request.getBodyStream();
+        }
+        byte[] raw = request.getRawBody();
+        return new ByteArrayInputStream(raw == null ? new byte[0] : raw);
+    }
+
     /**
      * Get the route for this context.
      *
@@ -589,10 +665,139 @@ public class ContextFromVertx implements Context {
     }
 
     /**
-     * Releases uploaded files.
+     * Releases uploaded files, the body buffer and the admission permit of the request, and notifies the server of
+     * the completion.
      */
     public void cleanup() {
+        if (request.getBodyStream() != null) {
+            // Discard the part of the body that has not been read.
+            request.getBodyStream().close();
+        }
+        complete();
+    }
+
+    /**
+     * Callback called when the underlying connection is closed. If the response has not been sent yet, the request
+     * won't complete, so the resources attached to the request are released, once the action method, if running,
+     * has returned.
+     */
+    public void closed() {
+        if (request.getBodyStream() != null) {
+            request.getBodyStream().fail(new IOException("Connection closed"));
+        }
+        Future<?> t = task;
+        if (t != null) {
+            // Nobody is waiting for the result anymore.
+            t.cancel(true);
+        }
+        complete();
+    }
+
+    /**
+     * Attaches the task computing the result asynchronously. It's cancelled if the connection is closed before its
+     * completion.
+     *
+     * @param task the task
+     */
+    void computing(Future<?> task) {
+        this.task = task;
+    }
+
+    /**
+     * Attaches the admission permit to the request. It's released when the request completes.
+     *
+     * @param permit the permit
+     */
+    void admitted(ConcurrencyLimiter.Permit permit) {
+        this.permit = permit;
+    }
+
+    /**
+     * Attaches the server tracking the requests in progress. It's notified when the request completes.
+     *
+     * @param server the server, on which {@link Server#enter()} has been called
+     */
+    void tracked(Server server) {
+        this.server.set(server);
+    }
+
+    /**
+     * Registers a task of the request run on a worker thread. The permit of the request is not released, and the
+     * server not notified of the completion, while the task is running, even if the connection is closed, or the
+     * response written on timeout, in the meantime.
+     *
+     * @return the object to notify of the execution of the task
+     */
+    Work work() {
+        working.incrementAndGet();
+        return new Work();
+    }
+
+    private void complete() {
+        completed = true;
+        if (working.get() == 0) {
+            release();
+        }
+    }
+
+    private void release() {
+        // The action method is not running anymore, so the body and the uploaded files can be released.
         request.getFiles().forEach(VertxFileUpload::cleanup);
+        request.releaseRawBody();
+        ConcurrencyLimiter.Permit p = permit;
+        if (p != null) {
+            p.release();
+        }
+        Server s = server.getAndSet(null);
+        if (s != null) {
+            s.leave();
+        }
+    }
+
+    /**
+     * A task of the request run on a worker thread, registered with {@link #work()}.
+     */
+    final class Work {
+
+        private static final int PENDING = 0;
+        private static final int RUNNING = 1;
+        private static final int ENDED = 2;
+
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        /**
+         * Notifies that the task is starting.
+         *
+         * @return {@code true} if the task must run, {@code false} if it has been abandoned before starting
+         */
+        boolean start() {
+            return state.compareAndSet(PENDING, RUNNING);
+        }
+
+        /**
+         * Notifies that the task has ended.
+         */
+        void end() {
+            if (state.getAndSet(ENDED) != ENDED) {
+                ended();
+            }
+        }
+
+        /**
+         * Notifies that the task will not run, because it has been rejected or cancelled. It has no effect if the
+         * task has already started, as it's still running.
+         */
+        void abandon() {
+            if (state.compareAndSet(PENDING, ENDED)) {
+                ended();
+            }
+        }
+
+        private void ended() {
+            if (working.decrementAndGet() == 0 && completed) {
+                release();
+            }
+        }
     }
 
     /**
@@ -0,0 +1,232 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import com.google.common.collect.ImmutableList;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.framework.vertx.file.DiskFileUpload;
+
+import java.util.List;
+
+/**
+ * The configuration values read while handling requests. They are read once, when the server is created, instead of
+ * querying the configuration for every request. As the servers are re-created when the engine is restarted (for
+ * instance when the configuration service is updated), the values are refreshed on every configuration change.
+ * <p>
+ * Instances are immutable.
+ */
+final class EngineSettings {
+
+    private final int maxBodySize;
+    private final long uploadDiskThreshold;
+    private final long uploadMaxSize;
+    private final boolean uploadStreaming;
+    private final long uploadStreamingMaxSize;
+    private final int streamedBodyBufferSize;
+    private final boolean actionsOnWorker;
+    private final long asyncTimeout;
+    private final boolean compression;
+    private final long encodingMinBound;
+    private final long encodingMaxBound;
+    private final int admissionLimit;
+    private final boolean admissionAdaptive;
+    private final int admissionMaxLimit;
+    private final long admissionLatency;
+    private final int admissionRetryAfter;
+    private final List<String> admissionExemptPaths;
+    private final long eventStreamHeartbeat;
+    private final int eventStreamCapacity;
+
+    /**
+     * Reads the settings from the given configuration.
+     *
+     * @param configuration the application configuration
+     */
+    EngineSettings(ApplicationConfiguration configuration) {
+        this.maxBodySize = configuration.getIntegerWithDefault("request.body.max.size", 100 * 1024);
+        this.uploadDiskThreshold = configuration.getLongWithDefault("http.upload.disk.threshold",
+                DiskFileUpload.MINSIZE);
+        this.uploadMaxSize = configuration.getLongWithDefault("http.upload.max", -1L);
+        this.uploadStreaming = configuration.getBooleanWithDefault("http.upload.streaming", false);
+        // Not limited by default, streamed uploads are written to disk and may exceed 2 GB.
+        this.uploadStreamingMaxSize = configuration.getLongWithDefault("http.upload.streaming.max", -1L);
+        this.streamedBodyBufferSize = configuration.getIntegerWithDefault("request.body.stream.buffer",
+                RequestBodyStream.DEFAULT_HIGH_WATER_MARK);
+        this.actionsOnWorker = configuration.getBooleanWithDefault("vertx.actions.worker", true);
+        this.asyncTimeout = configuration.getLongWithDefault("vertx.async.timeout", 0L);
+        this.compression = configuration.getBooleanWithDefault("vertx.compression", true);
+        this.encodingMinBound = configuration.getBytes(ApplicationConfiguration.ENCODING_MIN_SIZE,
+                ApplicationConfiguration.DEFAULT_ENCODING_MIN_SIZE);
+        this.encodingMaxBound = configuration.getBytes(ApplicationConfiguration.ENCODING_MAX_SIZE,
+                ApplicationConfiguration.DEFAULT_ENCODING_MAX_SIZE);
+
+        this.admissionLimit = configuration.getIntegerWithDefault("vertx.admission.limit", -1);
+        this.admissionAdaptive = configuration.getBooleanWithDefault("vertx.admission.adaptive", false);
+        int max = configuration.getIntegerWithDefault("vertx.admission.max", -1);
+        this.admissionMaxLimit = max > 0 ? max : admissionLimit * 4;
+        long latency = configuration.getLongWithDefault("vertx.admission.latency", 100L);
+        this.admissionLatency = latency > 0 ? latency : 100L;
+        int retryAfter = configuration.getIntegerWithDefault("vertx.admission.retry-after", 1);
+        this.admissionRetryAfter = retryAfter > 0 ? retryAfter : 1;
+        List<String> exempt = configuration.getList("vertx.admission.exempt");
+        this.admissionExemptPaths = exempt == null || exempt.isEmpty() ? ImmutableList.of("/health")
+                : ImmutableList.copyOf(exempt);
+
+        this.eventStreamHeartbeat = configuration.getLongWithDefault("vertx.sse.heartbeat", 15000L);
+        int capacity = configuration.getIntegerWithDefault("vertx.sse.capacity", 1000);
+        this.eventStreamCapacity = capacity > 0 ? capacity : 1000;
+    }
+
+    /**
+     * @return the maximum size of the request body kept in memory ({@literal request.body.max.size}).
+     */
+    int maxBodySize() {
+        return maxBodySize;
+    }
+
+    /**
+     * @return the size above which the uploaded files are stored on disk ({@literal http.upload.disk.threshold}).
+     */
+    long uploadDiskThreshold() {
+        return uploadDiskThreshold;
+    }
+
+    /**
+     * @return the maximum size of the uploaded files, {@literal -1} for no limit ({@literal http.upload.max}).
+     */
+    long uploadMaxSize() {
+        return uploadMaxSize;
+    }
+
+    /**
+     * @return whether or not the uploaded files are written to disk as they are received, instead of being kept in
+     * memory below the disk threshold ({@literal http.upload.streaming}).
+     */
+    boolean uploadStreaming() {
+        return uploadStreaming;
+    }
+
+    /**
+     * @return the maximum size of a multipart request when the uploaded files are streamed to disk, form attributes
+     * included, {@literal 0} or less for no limit, the default ({@literal http.upload.streaming.max}).
+     */
+    long uploadStreamingMaxSize() {
+        return uploadStreamingMaxSize;
+    }
+
+    /**
+     * @return the amount of data buffered for streamed request bodies before pausing the request
+     * ({@literal request.body.stream.buffer}).
+     */
+    int streamedBodyBufferSize() {
+        return streamedBodyBufferSize;
+    }
+
+    /**
+     * @return whether or not the action methods are invoked on worker threads ({@literal vertx.actions.worker}).
+     * Enabled by default: unless annotated with {@link org.wisdom.api.annotations.NonBlocking}, the actions run on
+     * the {@literal wisdom-actions-executor} pool and not on the event loop.
+     */
+    boolean actionsOnWorker() {
+        return actionsOnWorker;
+    }
+
+    /**
+     * @return the maximum amount of time in milliseconds to compute asynchronous results not setting their own
+     * timeout, {@literal 0} or negative for no limit ({@literal vertx.async.timeout}).
+     */
+    long asyncTimeout() {
+        return asyncTimeout;
+    }
+
+    /**
+     * @return whether or not the compression is enabled ({@literal vertx.compression}).
+     */
+    boolean compression() {
+        return compression;
+    }
+
+    /**
+     * @return the threshold below which the content should not be encoded.
+     */
+    long encodingMinBound() {
+        return encodingMinBound;
+    }
+
+    /**
+     * @return the threshold above which the content should not be encoded.
+     */
+    long encodingMaxBound() {
+        return encodingMaxBound;
+    }
+
+    /**
+     * Creates the limiter bounding the number of requests processed concurrently by a server.
+     *
+     * @return the limiter, {@code null} if the number of requests is not limited ({@literal vertx.admission.limit}
+     * not set or not positive)
+     */
+    ConcurrencyLimiter createLimiter() {
+        if (admissionLimit <= 0) {
+            return null;
+        }
+        return new ConcurrencyLimiter(admissionLimit, admissionAdaptive, admissionMaxLimit, admissionLatency);
+    }
+
+    /**
+     * @return the delay in seconds sent in the {@literal Retry-After} header of rejected requests
+     * ({@literal vertx.admission.retry-after}).
+     */
+    int admissionRetryAfter() {
+        return admissionRetryAfter;
+    }
+
+    /**
+     * Checks whether the given path is exempt from the admission control, such as health checks. The exempted paths
+     * are configured using {@literal vertx.admission.exempt}, {@literal /health} by default.
+     *
+     * @param path the request path
+     * @return {@code true} if the request must be processed even if the server is saturated
+     */
+    boolean isExemptFromAdmission(String path) {
+        for (String exempt : admissionExemptPaths) {
+            if (path.equals(exempt) || path.startsWith(exempt.endsWith("/") ? exempt : exempt + "/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the delay in milliseconds between two heartbeats on the Server-Sent Events streams not setting their
+     * own delay, {@literal 0} or negative to disable heartbeats ({@literal vertx.sse.heartbeat}).
+     */
+    long eventStreamHeartbeat() {
+        return eventStreamHeartbeat;
+    }
+
+    /**
+     * @return the maximum number of events waiting to be written on a Server-Sent Events stream, events sent when
+     * this number is reached are dropped ({@literal vertx.sse.capacity}).
+     */
+    int eventStreamCapacity() {
+        return eventStreamCapacity;
+    }
+}
@@ -21,31 +21,50 @@ package org.wisdom.framework.vertx;
 
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.cookie.ServerCookieEncoder;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.http.HttpVersion;
 import io.vertx.core.streams.Pump;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wisdom.api.annotations.NonBlocking;
+import org.wisdom.api.annotations.StreamedBody;
 import org.wisdom.api.bodies.NoHttpBody;
+import org.wisdom.api.bodies.RenderableFile;
+import org.wisdom.api.bodies.RenderableURL;
 import org.wisdom.api.concurrent.ManagedFutureTask;
 import org.wisdom.api.exceptions.ExceptionMapper;
 import org.wisdom.api.exceptions.HttpException;
 import org.wisdom.api.http.*;
+import org.wisdom.api.http.sse.EventStreamResult;
 import org.wisdom.api.router.Route;
+import org.wisdom.api.router.RouteMatch;
 import org.wisdom.framework.vertx.cookies.CookieHelper;
-import org.wisdom.framework.vertx.file.DiskFileUpload;
 import org.wisdom.framework.vertx.file.MixedFileUpload;
+import org.wisdom.framework.vertx.file.StreamingFileUpload;
+import org.wisdom.framework.vertx.file.VertxFileUpload;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Handles HTTP Request. Don't forget that request may arrive as chunk.
@@ -64,6 +83,17 @@ public class HttpHandler implements Handler<HttpServerRequest> {
     private final Vertx vertx;
     private final Server server;
 
+    /**
+     * The configuration values used while handling requests.
+     */
+    private final EngineSettings settings;
+
+    /**
+     * Whether or not the action methods are invoked on a worker thread (unless they are marked as
+     * {@link NonBlocking}). If not, they are invoked on the event loop.
+     */
+    private final boolean dispatchOnWorker;
+
     /**
      * Creates the handler.
      *
@@ -76,6 +106,8 @@ public class HttpHandler implements Handler<HttpServerRequest> {
         this.accessor = accessor;
         this.vertx = vertx;
         this.server = server;
+        this.settings = server.settings();
+        this.dispatchOnWorker = accessor.getActionExecutor() != null && settings.actionsOnWorker();
     }
 
     /**
@@ -98,41 +130,82 @@ public class HttpHandler implements Handler<HttpServerRequest> {
                     false,
                     true);
         } else {
-            Buffer raw = Buffer.buffer(0);
             RequestFromVertx req = (RequestFromVertx) context.request();
+            // While the server is draining, the request is still served, but the connection is not reused.
+            server.enter();
+            context.tracked(server);
+            if (!admit(context, request)) {
+                LOGGER.debug("Request on {} rejected by {}, too many requests in progress", request.path(),
+                        server.name());
+                // The body (if any) is not read, so the connection cannot be reused.
+                writeResponse(context, req, new Result(Status.SERVICE_UNAVAILABLE)
+                                .with(HeaderNames.RETRY_AFTER, Integer.toString(settings.admissionRetryAfter())),
+                        false, HttpUtils.isPostOrPut(request));
+                return;
+            }
+            request.response().closeHandler(v -> context.closed());
+
+            // The route only depends on the request line and headers, so it's resolved before reading the body.
+            RouteMatch match = accessor.getRouter().match(HttpMethod.from(req.method()), context.path(), req);
+            // The captured path parameters belong to this exchange, the request is left untouched.
+            context.pathParameters(match.pathParameters());
+            Route route = match.route();
+            if (mustStreamBody(request, route)) {
+                streamBody(context, req, route);
+                return;
+            }
+
             AtomicBoolean error = new AtomicBoolean();
+            // When the uploaded files are streamed to disk, the multipart body is not kept in memory.
+            boolean streamUploads = settings.uploadStreaming() && isMultipart(request);
             if (HttpUtils.isPostOrPut(request)) {
                 request.setExpectMultipart(true);
-                request.uploadHandler(upload -> req.getFiles().add(new MixedFileUpload(context.vertx(), upload,
-                        accessor.getConfiguration().getLongWithDefault("http.upload.disk.threshold", DiskFileUpload.MINSIZE),
-                        accessor.getConfiguration().getLongWithDefault("http.upload.max", -1L),
-                        r -> {
-                            request.uploadHandler(null);
-                            request.handler(null);
-                            error.set(true);
-                            writeResponse(context, req, r, false, true);
-                        })
+                Handler<Result> onUploadError = r -> {
+                    request.uploadHandler(null);
+                    request.handler(null);
+                    error.set(true);
+                    writeResponse(context, req, r, false, true);
+                };
+                request.uploadHandler(upload -> req.getFiles().add(streamUploads
+                        ? new StreamingFileUpload(context.vertx(), upload, settings.uploadMaxSize(), onUploadError)
+                        : new MixedFileUpload(context.vertx(), upload,
+                        settings.uploadDiskThreshold(),
+                        settings.uploadMaxSize(),
+                        onUploadError)
                 ));
             }
 
-            int maxBodySize =
-                    accessor.getConfiguration().getIntegerWithDefault("request.body.max.size", 100 * 1024);
+            int maxBodySize = settings.maxBodySize();
+            // Sizes the body buffer upfront when the length is known, so it's not reallocated while reading.
+            int expectedBodySize = Math.min(contentLength(request), maxBodySize);
+            long maxStreamedSize = settings.uploadStreamingMaxSize();
+            AtomicLong streamedSize = new AtomicLong();
             request.handler(event -> {
                 if (event == null) {
                     return;
                 }
 
-                // To avoid we run out of memory we cut the read body to 100Kb. This can be configured using the
-                // "request.body.max.size" property.
-                boolean exceeded = raw.length() >= maxBodySize;
+                boolean exceeded;
+                if (streamUploads) {
+                    // The body is not kept, but the form attributes are still decoded in memory, and each file is
+                    // only bounded by "http.upload.max". The whole request is bounded by "http.upload.streaming.max".
+                    exceeded = maxStreamedSize > 0 && streamedSize.addAndGet(event.length()) > maxStreamedSize;
+                } else {
+                    // To avoid we run out of memory we cut the read body to 100Kb. This can be configured using the
+                    // "request.body.max.size" property.
+                    exceeded = req.getRawBodyLength() >= maxBodySize;
+                }
 
                 // We may have the content in different HTTP message, check if we already have a content.
                 // Issue #257.
                 if (!exceeded) {
-                    raw.appendBuffer(event);
+                    if (!streamUploads) {
+                        req.appendRawBody(event, expectedBodySize);
+                    }
                 } else {
-                    // Remove the handler as we stop reading the request.
+                    // Remove the handlers as we stop reading the request.
                     request.handler(null);
+                    request.uploadHandler(null);
                     error.set(true);
                     writeResponse(context, req, new Result(Status.PAYLOAD_TOO_LARGE)
                             .render("Body size exceeded - request cancelled")
@@ -146,19 +219,90 @@ public class HttpHandler implements Handler<HttpServerRequest> {
                     // Error already written.
                     return;
                 }
-                req.setRawBody(raw);
-                // Notifies the context that the request has been read, we start the dispatching.
-                if (context.ready()) {
-                    // Dispatch.
-                    dispatch(context, (RequestFromVertx) context.request());
-                } else {
-                    writeResponse(context, req,
-                            Results.badRequest("Request processing failed"), false, true);
+                // The uploaded files may still be written.
+                whenUploadsCompleted(req, () -> {
+                    if (error.get()) {
+                        return;
+                    }
+                    // Notifies the context that the request has been read, we start the dispatching.
+                    if (context.ready()) {
+                        // Dispatch.
+                        dispatch(context, (RequestFromVertx) context.request(), route);
+                    } else {
+                        writeResponse(context, req,
+                                Results.badRequest("Request processing failed"), false, true);
+                    }
+                });
+            });
+        }
+    }
+
+    /**
+     * Calls the given callback once all the uploaded files of the given request are stored.
+     *
+     * @param request  the request
+     * @param callback the callback
+     */
+    private static void whenUploadsCompleted(RequestFromVertx request, Runnable callback) {
+        List<VertxFileUpload> files = request.getFiles();
+        if (files.isEmpty()) {
+            callback.run();
+            return;
+        }
+        AtomicInteger remaining = new AtomicInteger(files.size());
+        for (VertxFileUpload file : files) {
+            file.whenCompleted(v -> {
+                if (remaining.decrementAndGet() == 0) {
+                    callback.run();
                 }
             });
         }
     }
 
+    private static boolean isMultipart(HttpServerRequest request) {
+        String contentType = request.headers().get(HeaderNames.CONTENT_TYPE);
+        return contentType != null && HttpUtils.getContentTypeFromContentTypeAndCharacterSetting(contentType)
+                .equalsIgnoreCase(MimeTypes.MULTIPART);
+    }
+
+    /**
+     * @return the length of the body announced by the {@literal Content-Length} header, {@code -1} if the header is
+     * absent or invalid
+     */
+    private static int contentLength(HttpServerRequest request) {
+        String header = request.headers().get(HeaderNames.CONTENT_LENGTH);
+        if (header == null) {
+            return -1;
+        }
+        try {
+            long length = Long.parseLong(header.trim());
+            return length < 0 ? -1 : (int) Math.min(length, Integer.MAX_VALUE);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Checks whether the given request can be processed, according to the number of requests in progress. Once
+     * admitted, the request holds a permit until it's completed.
+     *
+     * @param context the HTTP context
+     * @param request the request
+     * @return {@code true} if the request can be processed, {@code false} if it must be rejected
+     */
+    private boolean admit(ContextFromVertx context, HttpServerRequest request) {
+        ConcurrencyLimiter limiter = server.limiter();
+        if (limiter == null || settings.isExemptFromAdmission(request.path())) {
+            return true;
+        }
+        ConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+        if (permit == null) {
+            return false;
+        }
+        context.admitted(permit);
+        return true;
+    }
+
     /**
      * The request is now completed, clean everything.
      *
@@ -173,29 +317,155 @@ public class HttpHandler implements Handler<HttpServerRequest> {
     }
 
 
-    private void dispatch(ContextFromVertx context, RequestFromVertx request) {
+    /**
+     * Checks whether the body of the given request must be given to the action method while it's received. It's
+     * the case for the action methods annotated with {@link StreamedBody}, unless the request is a form or a
+     * multipart request, or there are no worker threads to invoke the action method.
+     *
+     * @param request the request
+     * @param route   the route
+     * @return {@code true} if the body must be streamed
+     */
+    private boolean mustStreamBody(HttpServerRequest request, Route route) {
+        if (route == null || route.isUnbound() || accessor.getActionExecutor() == null
+                || !route.getControllerMethod().isAnnotationPresent(StreamedBody.class)) {
+            return false;
+        }
+        String contentType = request.headers().get(HeaderNames.CONTENT_TYPE);
+        if (contentType == null) {
+            return true;
+        }
+        contentType = HttpUtils.getContentTypeFromContentTypeAndCharacterSetting(contentType);
+        return !contentType.equalsIgnoreCase(MimeTypes.FORM) && !contentType.equalsIgnoreCase(MimeTypes.MULTIPART);
+    }
+
+    /**
+     * Invokes the action method right away, on a worker thread, and gives it the body while it's received.
+     *
+     * @param context the HTTP context
+     * @param req     the request
+     * @param route   the route
+     */
+    private void streamBody(ContextFromVertx context, RequestFromVertx req, Route route) {
+        HttpServerRequest request = req.getVertxRequest();
+        RequestBodyStream body = new RequestBodyStream(request, context.vertxContext(),
+                settings.streamedBodyBufferSize());
+        req.setBodyStream(body);
+        request.handler(body::push);
+        request.endHandler(v -> body.end());
+        request.exceptionHandler(body::fail);
+
+        LOGGER.debug("Dispatching {} {}, streaming the body", req.method(), context.path());
+        context.ready();
+        context.route(route);
+        try {
+            executeOnWorker(context, req, route);
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Cannot dispatch {} {}, no worker thread available", req.method(), context.path());
+            body.close();
+            writeResponse(context, req, new Result(Status.SERVICE_UNAVAILABLE), false, true);
+        }
+    }
+
+    private void dispatch(ContextFromVertx context, RequestFromVertx request, Route route) {
         LOGGER.debug("Dispatching {} {}", context.request().method(), context.path());
         // 2 Register context
         Context.CONTEXT.set(context);
-        // 3 Get route for context
-        Route route = accessor.getRouter().getRouteFor(context.request().method(), context.path(), request);
-        Result result;
 
         if (route == null) {
             // 3.1 : no route to destination
             // Should never return null, but an unbound route instead.
             LOGGER.error("The router has returned 'null' instead of an unbound route for " + context.path());
-            result = Results.notFound();
-        } else {
-            // 3.2 : route found
-            context.route(route);
-            result = invoke(route);
+            onResult(context, request, Results.notFound());
+            return;
+        }
 
-            if (result instanceof AsyncResult) {
-                // Asynchronous operation in progress.
-                handleAsyncResult(context, request, (AsyncResult) result);
-                return;
+        // 3.2 : route found
+        context.route(route);
+        if (dispatchOnWorker && !isNonBlocking(route)) {
+            // Release the event loop, the action may block.
+            Context.CONTEXT.remove();
+            try {
+                executeOnWorker(context, request, route);
+            } catch (RejectedExecutionException e) {
+                LOGGER.warn("Cannot dispatch {} {}, no worker thread available", context.request().method(),
+                        context.path());
+                onResult(context, request, new Result(Status.SERVICE_UNAVAILABLE));
             }
+            return;
+        }
+        onResult(context, request, invoke(route));
+    }
+
+    /**
+     * Submits the invocation of the action method to the worker threads. The request is not considered completed
+     * until the action method returns, even if the connection is closed before.
+     *
+     * @param context the HTTP context
+     * @param request the request
+     * @param route   the route
+     * @throws RejectedExecutionException if there are no worker thread available
+     */
+    private void executeOnWorker(ContextFromVertx context, RequestFromVertx request, Route route) {
+        ContextFromVertx.Work work = context.work();
+        try {
+            accessor.getActionExecutor().execute(() -> {
+                if (!work.start()) {
+                    return;
+                }
+                try {
+                    invokeOnWorker(context, request, route);
+                } finally {
+                    work.end();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            work.abandon();
+            throw e;
+        }
+    }
+
+    /**
+     * Invokes the action method on the current (worker) thread, and writes the response from the Vert.x context of
+     * the request.
+     *
+     * @param context the HTTP context
+     * @param request the request
+     * @param route   the route
+     */
+    private void invokeOnWorker(ContextFromVertx context, RequestFromVertx request, Route route) {
+        Context.CONTEXT.set(context);
+        Result result;
+        try {
+            result = invoke(route);
+        } finally {
+            Context.CONTEXT.remove();
+        }
+        context.vertxContext().runOnContext(v -> {
+            Context.CONTEXT.set(context);
+            onResult(context, request, result);
+        });
+    }
+
+    /**
+     * Checks whether the given route can be invoked on the event loop. Unbound routes and the action methods
+     * annotated with {@link NonBlocking} (or declared in a controller annotated with {@link NonBlocking}) are
+     * invoked on the event loop.
+     *
+     * @param route the route
+     * @return {@code true} if the route can be invoked on the event loop
+     */
+    private static boolean isNonBlocking(Route route) {
+        return route.isUnbound()
+                || route.getControllerMethod().isAnnotationPresent(NonBlocking.class)
+                || route.getControllerClass().isAnnotationPresent(NonBlocking.class);
+    }
+
+    private void onResult(ContextFromVertx context, RequestFromVertx request, Result result) {
+        if (result instanceof AsyncResult) {
+            // Asynchronous operation in progress.
+            handleAsyncResult(context, request, (AsyncResult) result);
+            return;
         }
 
         // Synchronous processing or not found.
@@ -203,9 +473,9 @@ public class HttpHandler implements Handler<HttpServerRequest> {
             writeResponse(context, request, result, true, false);
         } catch (Exception e) {
             LOGGER.error("Cannot write response", e);
-            result = Results.internalServerError(e);
+            Result error = Results.internalServerError(e);
             try {
-                writeResponse(context, request, result, false, false);
+                writeResponse(context, request, error, false, false);
             } catch (Exception e1) {
                 LOGGER.error("Cannot even write the error response...", e1);
                 // Ignore.
@@ -234,10 +504,59 @@ public class HttpHandler implements Handler<HttpServerRequest> {
             final RequestFromVertx request,
             final AsyncResult asyncResult) {
 
-        ManagedFutureTask<Result> future = accessor.getExecutor().submit(asyncResult.callable());
+        final ManagedFutureTask<Result> future;
+        // The computation may outlive the response (timeout, closed connection), it keeps the request in progress
+        // until it actually ends.
+        final ContextFromVertx.Work work = context.work();
+        final Callable<Result> callable = asyncResult.callable();
+        try {
+            future = accessor.getActionExecutor().submit(() -> {
+                if (!work.start()) {
+                    return null;
+                }
+                try {
+                    return callable.call();
+                } finally {
+                    work.end();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            work.abandon();
+            LOGGER.warn("Cannot compute the result of {} {}, no worker thread available", request.method(),
+                    request.uri());
+            writeResponse(context, request, new Result(Status.SERVICE_UNAVAILABLE), false, false);
+            return;
+        }
+        context.computing(future);
+        // If cancelled before it starts, the computation never runs.
+        future.addListener(work::abandon, MoreExecutors.directExecutor());
+
+        // Whether or not the response has been written (or abandoned), either by the callback or on timeout.
+        final AtomicBoolean completed = new AtomicBoolean();
+        long timeout = asyncResult.getTimeout() > 0 ? asyncResult.getTimeout() : settings.asyncTimeout();
+        final long timer;
+        if (timeout > 0) {
+            timer = vertx.setTimer(timeout, id -> {
+                if (completed.compareAndSet(false, true)) {
+                    LOGGER.debug("Cancelling the computation of the result of {} {}, it took more than {} ms",
+                            request.method(), request.uri(), timeout);
+                    // Interrupt the computation if supported.
+                    future.cancel(true);
+                    writeResponse(context, request,
+                            new HttpException(Status.GATEWAY_TIMEOUT, "Request timeout").toResult(), false, false);
+                }
+            });
+        } else {
+            timer = -1;
+        }
+
+        // The callback is called on the event loop of the connection, as the other steps of the response writing.
         Futures.addCallback(future, new FutureCallback<Result>() {
             @Override
             public void onSuccess(Result result) {
+                if (!complete()) {
+                    return;
+                }
                 // We got a result, write it here.
                 // Merge the headers of the initial result and the async results.
                 final Map<String, String> headers = result.getHeaders();
@@ -251,6 +570,17 @@ public class HttpHandler implements Handler<HttpServerRequest> {
 
             @Override
             public void onFailure(Throwable t) {
+                if (!complete()) {
+                    return;
+                }
+                if (t instanceof CancellationException) {
+                    // Cancelled because the connection has been closed, there is nobody to answer to.
+                    LOGGER.debug("The computation of the result of {} {} has been cancelled", request.method(),
+                            request.uri());
+                    cleanup(context);
+                    return;
+                }
+
                 //We got a failure, handle it here
 
                 // Check whether it's a HTTPException
@@ -270,8 +600,23 @@ public class HttpHandler implements Handler<HttpServerRequest> {
 
                 writeResponse(context, request, Results.internalServerError(t), false, false);
             }
-        }/*, MoreExecutors.directExecutor()*/);
-        //TODO Which executor should we use here ?
+
+            /**
+             * Marks the response as completed, and cancels the timeout.
+             *
+             * @return {@code true} if the response must be written, {@code false} if it has already been handled
+             * on timeout
+             */
+            private boolean complete() {
+                if (!completed.compareAndSet(false, true)) {
+                    return false;
+                }
+                if (timer != -1) {
+                    vertx.cancelTimer(timer);
+                }
+                return true;
+            }
+        }, command -> context.vertxContext().runOnContext(v -> command.run()));
     }
 
     private void writeResponse(
@@ -280,21 +625,40 @@ public class HttpHandler implements Handler<HttpServerRequest> {
             Result result,
             boolean handleFlashAndSessionCookie,
             boolean closeConnection) {
+        if (result instanceof EventStreamResult) {
+            openEventStream(context, request, (EventStreamResult) result, handleFlashAndSessionCookie);
+            return;
+        }
+
         //Retrieve the renderable object.
         Renderable<?> renderable = result.getRenderable();
         if (renderable == null) {
             renderable = NoHttpBody.INSTANCE;
         }
 
-        InputStream stream;
+        // File-backed content is sent by the kernel, without reading it.
+        File file = getFileToSend(request, renderable);
+
+        InputStream stream = null;
+        Buffer content = null;
         boolean success = true;
-        try {
-            // Process the result, and apply serialization if required.
-            stream = HttpUtils.processResult(accessor, context, renderable, result);
-        } catch (Exception e) {
-            LOGGER.error("Cannot render the response to " + request.uri(), e);
-            stream = new ByteArrayInputStream(NoHttpBody.empty());
-            success = false;
+        if (file == null) {
+            try {
+                // Process the result, and apply serialization if required.
+                Renderable<?> serialized = HttpUtils.serialize(accessor, context, renderable, result);
+                if (serialized instanceof BufferRenderable && !renderable.mustBeChunked()) {
+                    // The content is already in memory, wrap it instead of copying it.
+                    content = Buffer.buffer(Unpooled.wrappedBuffer(
+                            ((BufferRenderable<?>) serialized).renderAsBuffer(context, result)));
+                } else {
+                    stream = serialized.render(context, result);
+                }
+            } catch (Exception e) {
+                LOGGER.error("Cannot render the response to " + request.uri(), e);
+                stream = new ByteArrayInputStream(NoHttpBody.empty());
+                content = null;
+                success = false;
+            }
         }
 
         // If the content is too big or too small, disable encoding.
@@ -313,7 +677,107 @@ public class HttpHandler implements Handler<HttpServerRequest> {
         }
 
         finalizeWriteReponse(context, request.getVertxRequest(),
-                result, stream, success, handleFlashAndSessionCookie, closeConnection);
+                result, stream, content, file, success, handleFlashAndSessionCookie, closeConnection);
+    }
+
+    /**
+     * Opens a Server-Sent Events stream. The response headers are sent right away, then the events are written by
+     * the {@link VertxEventStream} given to the result's handler. The stream is long-lived, so it does not hold the
+     * admission permit of the request, and is not counted as a request in progress.
+     * <p>
+     * This method must be called in a Vert.X context.
+     *
+     * @param context                     the HTTP context
+     * @param request                     the request
+     * @param result                      the result
+     * @param handleFlashAndSessionCookie whether or not the flash and session cookies must be sent
+     */
+    private void openEventStream(ContextFromVertx context, RequestFromVertx request, EventStreamResult result,
+                                 boolean handleFlashAndSessionCookie) {
+        if (server.isDraining()) {
+            writeResponse(context, request, new Result(Status.SERVICE_UNAVAILABLE)
+                            .with(HeaderNames.RETRY_AFTER, Integer.toString(settings.admissionRetryAfter())),
+                    false, true);
+            return;
+        }
+
+        final HttpServerResponse response = request.getVertxRequest().response();
+        // The events must not be buffered by the compressor.
+        result.withoutCompression();
+        for (Map.Entry<String, String> header : result.getHeaders().entrySet()) {
+            response.putHeader(header.getKey(), header.getValue());
+        }
+        if (!result.getHeaders().containsKey(HeaderNames.SERVER)) {
+            response.putHeader(HeaderNames.SERVER, SERVER_NAME);
+        }
+        response.putHeader(HeaderNames.CONTENT_TYPE, MimeTypes.EVENT_STREAM + "; charset=utf-8");
+        response.putHeader(HeaderNames.CACHE_CONTROL, "no-cache");
+        response.putHeader(HeaderNames.CONNECTION, "keep-alive");
+        if (handleFlashAndSessionCookie) {
+            context.flash().save(context, result);
+            context.session().save(context, result);
+        }
+        copyCookies(result, response);
+        response.setStatusCode(result.getStatusCode());
+        response.setChunked(true);
+
+        VertxEventStream stream = new VertxEventStream(vertx, context.vertxContext(), response, server,
+                settings.eventStreamCapacity());
+        server.register(stream);
+        response.closeHandler(v -> {
+            context.closed();
+            stream.closed();
+        });
+        stream.start(result.getHeartbeat() > 0 ? result.getHeartbeat() : settings.eventStreamHeartbeat());
+        try {
+            result.handler().accept(stream);
+        } catch (Exception e) { //NOSONAR
+            LOGGER.error("Cannot open the event stream of {}", request.uri(), e);
+            stream.close();
+        }
+        cleanup(context);
+    }
+
+    private static void copyCookies(Result result, HttpServerResponse response) {
+        for (org.wisdom.api.cookies.Cookie cookie : result.getCookies()) {
+            // Encode cookies:
+            final String encoded = ServerCookieEncoder.LAX.encode(
+                    CookieHelper.convertWisdomCookieToNettyCookie(cookie));
+            // Here we use the 'add' method to add a new value to the header.
+            response.headers().add(HeaderNames.SET_COOKIE, encoded);
+        }
+    }
+
+    /**
+     * Gets the file to send if the given renderable object is backed by a file ({@link RenderableFile} or
+     * {@link RenderableURL} using the {@literal file} protocol).
+     *
+     * @param request    the request
+     * @param renderable the renderable object
+     * @return the file, {@code null} if the content is not backed by a readable file
+     */
+    private static File getFileToSend(RequestFromVertx request, Renderable<?> renderable) {
+        if (HttpMethod.HEAD.name().equalsIgnoreCase(request.method())) {
+            return null;
+        }
+        File file = null;
+        if (renderable instanceof RenderableFile) {
+            file = ((RenderableFile) renderable).content();
+        } else if (renderable instanceof RenderableURL) {
+            URL url = ((RenderableURL) renderable).content();
+            if (url != null && "file".equals(url.getProtocol())) {
+                try {
+                    file = new File(url.toURI());
+                } catch (URISyntaxException | IllegalArgumentException e) { //NOSONAR
+                    // Not a file we can send, fallback to the stream.
+                    LOGGER.debug("Cannot get the file from {}", url, e);
+                }
+            }
+        }
+        if (file != null && file.isFile() && file.canRead()) {
+            return file;
+        }
+        return null;
     }
 
     /**
@@ -322,7 +786,11 @@ public class HttpHandler implements Handler<HttpServerRequest> {
      * @param context                     the HTTP context
      * @param request                     the Vert.x request
      * @param result                      the computed result
-     * @param stream                      the stream of the result
+     * @param stream                      the stream of the result, {@code null} if the file or the content
+     *                                    buffer is sent
+     * @param content                     the content of the result, {@code null} if it must be read from the
+     *                                    stream
+     * @param file                        the file to send, {@code null} if the stream is sent
      * @param success                     a flag indicating whether or not the request was successfully handled
      * @param handleFlashAndSessionCookie if the flash and session cookie need to be send with the response
      * @param closeConnection             whehter or not the (underlying) TCP connection must be closed
@@ -332,6 +800,8 @@ public class HttpHandler implements Handler<HttpServerRequest> {
             final HttpServerRequest request,
             Result result,
             InputStream stream,
+            Buffer content,
+            File file,
             boolean success,
             boolean handleFlashAndSessionCookie,
             boolean closeConnection) {
@@ -340,8 +810,8 @@ public class HttpHandler implements Handler<HttpServerRequest> {
         if (renderable == null) {
             renderable = NoHttpBody.INSTANCE;
         }
-        // Decide whether to close the connection or not.
-        boolean keepAlive = HttpUtils.isKeepAlive(request);
+        // Decide whether to close the connection or not. While the server is draining, connections are not reused.
+        boolean keepAlive = HttpUtils.isKeepAlive(request) && !closeConnection && !server.isDraining();
 
         // Build the response object.
         final HttpServerResponse response = request.response();
@@ -371,44 +841,59 @@ public class HttpHandler implements Handler<HttpServerRequest> {
             context.session().save(context, result);
         }
 
-        // copy cookies
-        for (org.wisdom.api.cookies.Cookie cookie : result.getCookies()) {
-            // Encode cookies:
-            final String encoded = ServerCookieEncoder.LAX.encode(
-                    CookieHelper.convertWisdomCookieToNettyCookie(cookie));
-            // Here we use the 'add' method to add a new value to the header.
-            response.headers().add(HeaderNames.SET_COOKIE, encoded);
-        }
+        copyCookies(result, response);
         response.setStatusCode(HttpUtils.getStatusFromResult(result, success));
-        if (renderable.mustBeChunked()) {
+        if (file != null) {
+            LOGGER.debug("Sending file {} for {} {}", file.getAbsolutePath(), request.method(), request.uri());
+            response.putHeader(HeaderNames.CONNECTION, keepAlive ? "keep-alive" : "close");
+            // The content length is set by vert.x if not set already, and the response is ended once the file is sent.
+            response.sendFile(file.getAbsolutePath(), ar -> {
+                if (ar.failed()) {
+                    LOGGER.error("Cannot send the file {} to {}", file.getAbsolutePath(), request.uri(), ar.cause());
+                    response.close();
+                } else if (!keepAlive) {
+                    response.close();
+                }
+                cleanup(context);
+            });
+        } else if (renderable.mustBeChunked()) {
             LOGGER.debug("Building the chunked response for {} {} ({})", request.method(), request.uri(), context);
-            if (renderable.length() > 0 && !response.headers().contains(HeaderNames.CONTENT_LENGTH)) {
-                response.putHeader(HeaderNames.CONTENT_LENGTH, Long.toString(renderable.length()));
-            }
+            // A chunked response must not have a content length (RFC 7230 section 3.3.3), even if copied from the
+            // result: the client (or a proxy) could otherwise disagree on where the response ends.
+            response.headers().remove(HeaderNames.CONTENT_LENGTH);
 
             if (!response.headers().contains(HeaderNames.CONTENT_TYPE)) {
                 // No content is not legal, set default to binary.
                 response.putHeader(HeaderNames.CONTENT_TYPE, MimeTypes.BINARY);
             }
 
-            // Can't determine the size, so switch to chunked.
+            // Can't determine the size, so switch to chunked. HTTP/1.0 clients do not support the chunked encoding
+            // (Vert.x ignores it), they rely on the connection being closed to detect the end of the response.
+            final boolean chunked = request.version() == HttpVersion.HTTP_1_1;
             response.setChunked(true);
-            response.putHeader(HeaderNames.TRANSFER_ENCODING, "chunked");
-            // In addition, we can't keep the connection open.
-            response.putHeader(HeaderNames.CONNECTION, "close");
+            if (chunked) {
+                response.putHeader(HeaderNames.TRANSFER_ENCODING, "chunked");
+            }
+            // The last chunk delimits the response, so the connection can be reused.
+            final boolean reuse = keepAlive && chunked;
+            response.putHeader(HeaderNames.CONNECTION, reuse ? "keep-alive" : "close");
 
             final AsyncInputStream s = new AsyncInputStream(vertx, accessor.getExecutor(), stream);
             s.setContext(context.vertxContext());
             final Pump pump = Pump.pump(s, response);
             s.endHandler(event -> context.vertxContext().runOnContext(event1 -> {
                         LOGGER.debug("Ending chunked response for {}", request.uri());
+                        // Writes the terminating chunk.
                         response.end();
-                        response.close();
+                        if (!reuse) {
+                            response.close();
+                        }
                         cleanup(context);
                     })
             );
             s.exceptionHandler(event -> context.vertxContext().runOnContext(event1 -> {
                         LOGGER.error("Cannot read the result stream", event1);
+                        // The response is truncated, closing the connection is the only way to notify the client.
                         response.close();
                         cleanup(context);
                     })
@@ -416,26 +901,27 @@ public class HttpHandler implements Handler<HttpServerRequest> {
             context.vertxContext().runOnContext(event -> pump.start());
 
         } else {
-            byte[] cont = new byte[0];
-            try {
-                cont = IOUtils.toByteArray(stream);
-            } catch (IOException e) {
-                LOGGER.error("Cannot copy the response to {}", request.uri(), e);
+            Buffer cont = content;
+            if (cont == null) {
+                try {
+                    cont = Buffer.buffer(IOUtils.toByteArray(stream));
+                } catch (IOException e) {
+                    LOGGER.error("Cannot copy the response to {}", request.uri(), e);
+                    cont = Buffer.buffer(0);
+                }
             }
 
             if (!response.headers().contains(HeaderNames.CONTENT_LENGTH)) {
                 // Because of the HEAD implementation, if the length is already set, do not update it.
                 // (HEAD would mean no content)
-                response.putHeader(HeaderNames.CONTENT_LENGTH, Long.toString(cont.length));
+                response.putHeader(HeaderNames.CONTENT_LENGTH, Long.toString(cont.length()));
             }
 
+            // Add keep alive header as per:
+            // - http://www.w3.org/Protocols/HTTP/1.1/draft-ietf-http-v11-spec-01.html#Connection
+            response.putHeader(HeaderNames.CONNECTION, keepAlive ? "keep-alive" : "close");
+            response.write(cont);
             if (keepAlive) {
-                // Add keep alive header as per:
-                // - http://www.w3.org/Protocols/HTTP/1.1/draft-ietf-http-v11-spec-01.html#Connection
-                response.putHeader(HeaderNames.CONNECTION, "keep-alive");
-            }
-            response.write(Buffer.buffer(cont));
-            if (HttpUtils.isKeepAlive(request) && !closeConnection) {
                 response.end();
             } else {
                 response.end();
@@ -446,10 +932,10 @@ public class HttpHandler implements Handler<HttpServerRequest> {
     }
 
     private boolean shouldEncodingBeDisabledForResponse(long length, Result result) {
-        return server.hasCompressionEnabled()
+        return settings.compression()
                 && (
-                length < server.getEncodingMinBound() // Too small
-                        || length > server.getEncodingMaxBound() // Too big
+                length < settings.encodingMinBound() // Too small
+                        || length > settings.encodingMaxBound() // Too big
         );
     }
 
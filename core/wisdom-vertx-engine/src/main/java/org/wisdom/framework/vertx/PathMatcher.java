@@ -0,0 +1,256 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Checks whether a path is accepted by a server according to its {@literal allow} and {@literal deny} lists.
+ * <p>
+ * The lists contain paths with wildcards ({@code *} matches any sequence of characters). All the paths of both lists
+ * are compiled into a single automaton (a trie whose {@code *} nodes loop on any character), so checking a path is a
+ * single pass over its characters whatever the number of entries. Entries using other regex constructs are kept as
+ * {@link Pattern} and checked separately.
+ * <p>
+ * A path matching a denied entry is rejected. Otherwise, it is accepted if it matches an allowed entry. A path
+ * matching no entry is accepted only if the deny list is not empty. Instances are immutable and thread-safe.
+ */
+final class PathMatcher {
+
+    /**
+     * Regex characters that cannot be handled by the automaton.
+     */
+    private static final String REGEX_CHARACTERS = "?+[](){}|^$\\";
+
+    private static final int ALLOW = 1;
+    private static final int DENY = 2;
+
+    private final Node root;
+    private final int size;
+    private final List<Pattern> allowedPatterns;
+    private final List<Pattern> deniedPatterns;
+    private final boolean empty;
+    private final boolean acceptByDefault;
+
+    /**
+     * Compiles the given lists.
+     *
+     * @param allow the paths with wildcards accepted by the server
+     * @param deny  the paths with wildcards rejected by the server
+     */
+    PathMatcher(List<String> allow, List<String> deny) {
+        Builder builder = new Builder();
+        List<Pattern> allowed = new ArrayList<>();
+        List<Pattern> denied = new ArrayList<>();
+        for (String a : allow) {
+            builder.add(a.trim(), ALLOW, allowed);
+        }
+        for (String d : deny) {
+            builder.add(d.trim(), DENY, denied);
+        }
+        this.root = builder.root.freeze();
+        this.size = builder.count;
+        this.allowedPatterns = allowed;
+        this.deniedPatterns = denied;
+        this.empty = allow.isEmpty() && deny.isEmpty();
+        this.acceptByDefault = !deny.isEmpty();
+    }
+
+    /**
+     * Checks whether the given path is accepted.
+     *
+     * @param path the path
+     * @return {@code true} if the path is accepted, {@code false} otherwise
+     */
+    boolean accept(String path) {
+        if (empty) {
+            return true;
+        }
+        int flags = run(path);
+        if ((flags & DENY) != 0 || matches(deniedPatterns, path)) {
+            return false;
+        }
+        if ((flags & ALLOW) != 0 || matches(allowedPatterns, path)) {
+            return true;
+        }
+        return acceptByDefault;
+    }
+
+    private static boolean matches(List<Pattern> patterns, String path) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(path).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs the automaton on the given path.
+     *
+     * @param path the path
+     * @return the flags of the entries matching the whole path
+     */
+    private int run(String path) {
+        Node[] current = new Node[size];
+        Node[] next = new Node[size];
+        boolean[] active = new boolean[size];
+        int count = enter(root, current, 0, active);
+        for (int i = 0; i < path.length() && count > 0; i++) {
+            char c = path.charAt(i);
+            // Reset the states of the previous step.
+            for (int j = 0; j < count; j++) {
+                active[current[j].id] = false;
+            }
+            int n = 0;
+            for (int j = 0; j < count; j++) {
+                Node node = current[j];
+                if (node.loop) {
+                    n = enter(node, next, n, active);
+                }
+                Node child = node.child(c);
+                if (child != null) {
+                    n = enter(child, next, n, active);
+                }
+            }
+            Node[] swap = current;
+            current = next;
+            next = swap;
+            count = n;
+        }
+        int flags = 0;
+        for (int j = 0; j < count; j++) {
+            flags |= current[j].flags;
+        }
+        return flags;
+    }
+
+    /**
+     * Adds the given node, and the wildcard nodes reachable without consuming any character, to the set of states.
+     */
+    private static int enter(Node node, Node[] states, int count, boolean[] active) {
+        int n = count;
+        Node current = node;
+        while (current != null && !active[current.id]) {
+            active[current.id] = true;
+            states[n++] = current;
+            // A wildcard also matches the empty sequence.
+            current = current.star;
+        }
+        return n;
+    }
+
+    /**
+     * Builds the trie.
+     */
+    private static final class Builder {
+        private int count;
+        private final Node root = new Node(count++, false);
+
+        private void add(String path, int flag, List<Pattern> fallback) {
+            for (int i = 0; i < path.length(); i++) {
+                if (REGEX_CHARACTERS.indexOf(path.charAt(i)) != -1) {
+                    fallback.add(Pattern.compile(path.replace(".", "\\.").replace("*", ".*")));
+                    return;
+                }
+            }
+            Node node = root;
+            for (int i = 0; i < path.length(); i++) {
+                char c = path.charAt(i);
+                if (c == '*') {
+                    if (node.star == null) {
+                        node.star = new Node(count++, true);
+                    }
+                    node = node.star;
+                } else {
+                    Node child = node.building.get(c);
+                    if (child == null) {
+                        child = new Node(count++, false);
+                        node.building.put(c, child);
+                    }
+                    node = child;
+                }
+            }
+            node.flags |= flag;
+        }
+    }
+
+    /**
+     * A state of the automaton.
+     */
+    private static final class Node {
+        private final int id;
+        /**
+         * Whether the node is reached by a wildcard, and so loops on any character.
+         */
+        private final boolean loop;
+        private Node star;
+        private int flags;
+
+        /**
+         * The transitions, sorted by character.
+         */
+        private char[] labels;
+        private Node[] targets;
+        private Map<Character, Node> building = new TreeMap<>();
+
+        private Node(int id, boolean loop) {
+            this.id = id;
+            this.loop = loop;
+        }
+
+        private Node freeze() {
+            labels = new char[building.size()];
+            targets = new Node[building.size()];
+            int i = 0;
+            for (Map.Entry<Character, Node> entry : building.entrySet()) {
+                labels[i] = entry.getKey();
+                targets[i] = entry.getValue().freeze();
+                i++;
+            }
+            building = null;
+            if (star != null) {
+                star.freeze();
+            }
+            return this;
+        }
+
+        private Node child(char c) {
+            int low = 0;
+            int high = labels.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char label = labels[middle];
+                if (label < c) {
+                    low = middle + 1;
+                } else if (label > c) {
+                    high = middle - 1;
+                } else {
+                    return targets[middle];
+                }
+            }
+            return null;
+        }
+    }
+}
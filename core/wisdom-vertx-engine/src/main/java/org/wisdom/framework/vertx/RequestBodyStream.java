@@ -0,0 +1,193 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import io.vertx.core.Context;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * An input stream reading a request body while it's received. The chunks are pushed by the event loop, and read by
+ * a worker thread. When the amount of received but not yet read data exceeds the high water mark, the request is
+ * paused, and it's resumed once the reader has consumed half of it. So, the memory used by a request does not
+ * depend on the size of its body.
+ */
+public class RequestBodyStream extends InputStream {
+
+    /**
+     * Default high water mark.
+     */
+    static final int DEFAULT_HIGH_WATER_MARK = 64 * 1024;
+
+    private final HttpServerRequest request;
+    private final Context context;
+    private final int highWaterMark;
+
+    private final Deque<Buffer> chunks = new ArrayDeque<>();
+
+    /**
+     * The position in the first chunk.
+     */
+    private int position;
+
+    /**
+     * The number of bytes received and not yet read.
+     */
+    private int available;
+
+    private boolean paused;
+    private boolean ended;
+    private boolean closed;
+    private Throwable failure;
+
+    /**
+     * Creates a new instance of {@link RequestBodyStream}.
+     *
+     * @param request       the request, paused and resumed according to the consumption
+     * @param context       the vert.x context of the request
+     * @param highWaterMark the number of bytes received and not yet read above which the request is paused, the
+     *                      default value is used if not strictly positive
+     */
+    public RequestBodyStream(HttpServerRequest request, Context context, int highWaterMark) {
+        this.request = request;
+        this.context = context;
+        this.highWaterMark = highWaterMark > 0 ? highWaterMark : DEFAULT_HIGH_WATER_MARK;
+    }
+
+    /**
+     * Receives a chunk. Must be called from the event loop.
+     *
+     * @param chunk the chunk
+     */
+    public synchronized void push(Buffer chunk) {
+        if (closed || chunk == null || chunk.length() == 0) {
+            return;
+        }
+        chunks.add(chunk);
+        available += chunk.length();
+        if (!paused && available >= highWaterMark) {
+            paused = true;
+            request.pause();
+        }
+        notifyAll();
+    }
+
+    /**
+     * Notifies that the body has been received completely. Must be called from the event loop.
+     */
+    public synchronized void end() {
+        ended = true;
+        notifyAll();
+    }
+
+    /**
+     * Notifies that the body cannot be received completely.
+     *
+     * @param cause the cause
+     */
+    public synchronized void fail(Throwable cause) {
+        if (!ended && failure == null) {
+            failure = cause;
+        }
+        notifyAll();
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int read = read(single, 0, 1);
+        return read == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public synchronized int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (chunks.isEmpty()) {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (failure != null) {
+                throw new IOException("Cannot read the request body", failure);
+            }
+            if (ended) {
+                return -1;
+            }
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the request body");
+            }
+        }
+
+        Buffer chunk = chunks.peek();
+        int count = Math.min(len, chunk.length() - position);
+        chunk.getByteBuf().getBytes(position, b, off, count);
+        position += count;
+        if (position == chunk.length()) {
+            chunks.poll();
+            position = 0;
+        }
+        consumed(count);
+        return count;
+    }
+
+    @Override
+    public synchronized int available() {
+        return available;
+    }
+
+    /**
+     * Closes the stream. The rest of the body is discarded.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        chunks.clear();
+        available = 0;
+        resume();
+        notifyAll();
+    }
+
+    private void consumed(int count) {
+        available -= count;
+        if (paused && available <= highWaterMark / 2) {
+            resume();
+        }
+    }
+
+    private void resume() {
+        if (paused) {
+            paused = false;
+            context.runOnContext(v -> request.resume());
+        }
+    }
+}
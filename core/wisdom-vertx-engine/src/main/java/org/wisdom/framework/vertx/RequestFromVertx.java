@@ -23,6 +23,8 @@ import com.google.common.base.Charsets;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.net.MediaType;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.vertx.core.MultiMap;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpServerRequest;
@@ -38,6 +40,7 @@ import org.wisdom.framework.vertx.file.VertxFileUpload;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * An implementation of {@link org.wisdom.api.http.Request} based on Vert.X Request
@@ -54,9 +57,17 @@ public class RequestFromVertx extends Request {
     private List<VertxFileUpload> files = Lists.newArrayList();
 
     /**
-     * The raw body.
+     * The raw body, {@code null} until the first chunk is received. When the body is received chunk by chunk, it's a
+     * pooled buffer, released by {@link #releaseRawBody()} once the request has been handled and the action method
+     * has returned, so it's never released while being read. A buffer given by {@link #setRawBody(Buffer)} belongs
+     * to the caller, and is never released by this class.
      */
-    private Buffer raw = Buffer.factory.buffer(0);
+    private final AtomicReference<RawBody> raw = new AtomicReference<>();
+
+    /**
+     * The stream reading the body while it's received, {@code null} if the body is read before the dispatch.
+     */
+    private RequestBodyStream bodyStream;
 
     /**
      * The map used to store data shared in the request scope.
@@ -65,6 +76,18 @@ public class RequestFromVertx extends Request {
 
     private Map<String, List<String>> formData;
     private Map<String, List<String>> headers;
+    /**
+     * The query parameters, computed on the first access. Volatile as the request moves from the event loop to the
+     * worker threads.
+     */
+    private volatile Map<String, List<String>> parameters;
+
+    /**
+     * The path computed from the uri, and the media types computed from the {@literal Accept} header. They are
+     * computed on the first access, and recomputed only if the uri or the header change.
+     */
+    private volatile Memo<String> path;
+    private volatile Memo<Collection<MediaType>> mediaTypes;
 
     /**
      * Creates a {@link org.wisdom.framework.vertx.RequestFromVertx} object
@@ -196,12 +219,20 @@ public class RequestFromVertx extends Request {
      */
     @Override
     public String path() {
+        String uri = request.uri();
+        Memo<String> memo = path;
+        if (memo != null && memo.key.equals(uri)) {
+            return memo.value;
+        }
+        String result;
         try {
-            return new URI(request.uri()).getRawPath();
+            result = new URI(uri).getRawPath();
         } catch (URISyntaxException e) { //NOSONAR
             // Should never be the case.
-            return uri();
+            result = uri;
         }
+        path = new Memo<>(uri, result);
+        return result;
     }
 
     /**
@@ -253,33 +284,32 @@ public class RequestFromVertx extends Request {
             return ImmutableList.of(MediaType.ANY_TEXT_TYPE);
         }
 
-        TreeSet<MediaType> set = new TreeSet<>(new Comparator<MediaType>() {
-            @Override
-            public int compare(MediaType o1, MediaType o2) {
-                double q1 = 1.0, q2 = 1.0;
-                List<String> ql1 = o1.parameters().get("q");
-                List<String> ql2 = o2.parameters().get("q");
-
-                if (ql1 != null && !ql1.isEmpty()) {
-                    q1 = Double.parseDouble(ql1.get(0));
-                }
-
-                if (ql2 != null && !ql2.isEmpty()) {
-                    q2 = Double.parseDouble(ql2.get(0));
-                }
-
-                return new Double(q2).compareTo(q1);
-            }
-        });
+        Memo<Collection<MediaType>> memo = mediaTypes;
+        if (memo != null && memo.key.equals(contentType)) {
+            return memo.value;
+        }
 
-        // Split and sort.
-        String[] segments = contentType.split(",");
-        for (String segment : segments) {
+        // Split, and sort by quality. As only the quality is compared, only the first media type of a given quality
+        // is kept.
+        Map<Double, MediaType> types = new LinkedHashMap<>();
+        for (String segment : contentType.split(",")) {
             MediaType type = MediaType.parse(segment.trim());
-            set.add(type);
+            double q = 1.0;
+            List<String> ql = type.parameters().get("q");
+            if (ql != null && !ql.isEmpty()) {
+                q = Double.parseDouble(ql.get(0));
+            }
+            types.putIfAbsent(q, type);
         }
-
-        return set;
+        List<Map.Entry<Double, MediaType>> entries = new ArrayList<>(types.entrySet());
+        entries.sort((e1, e2) -> e2.getKey().compareTo(e1.getKey()));
+        ImmutableList.Builder<MediaType> builder = ImmutableList.builder();
+        for (Map.Entry<Double, MediaType> entry : entries) {
+            builder.add(entry.getValue());
+        }
+        Collection<MediaType> result = builder.build();
+        mediaTypes = new Memo<>(contentType, result);
+        return result;
     }
 
     /**
@@ -494,11 +524,18 @@ public class RequestFromVertx extends Request {
      */
     @Override
     public Map<String, List<String>> parameters() {
+        Map<String, List<String>> current = parameters;
+        if (current != null) {
+            return current;
+        }
         Map<String, List<String>> result = new HashMap<>();
         for (String key : request.params().names()) {
             result.put(key, request.params().getAll(key));
         }
-        return result;
+        // Computing it twice concurrently is harmless, both maps are equal.
+        current = Collections.unmodifiableMap(result);
+        parameters = current;
+        return current;
     }
 
     /**
@@ -538,10 +575,11 @@ public class RequestFromVertx extends Request {
      * @return the raw body, {@code null} if there is no body.
      */
     public String getRawBodyAsString() {
-        if (raw == null) {
-            return null;
+        ByteBuf buffer = rawBuffer();
+        if (buffer == null || buffer.refCnt() == 0) {
+            return "";
         }
-        return raw.toString(Charsets.UTF_8.displayName());
+        return buffer.toString(Charsets.UTF_8);
     }
 
     /**
@@ -550,7 +588,26 @@ public class RequestFromVertx extends Request {
      * @return the raw body, {@code null} if there is no body.
      */
     public byte[] getRawBody() {
-        return raw.getBytes();
+        ByteBuf buffer = rawBuffer();
+        if (buffer == null || buffer.refCnt() == 0) {
+            return new byte[0];
+        }
+        byte[] bytes = new byte[buffer.readableBytes()];
+        buffer.getBytes(buffer.readerIndex(), bytes);
+        return bytes;
+    }
+
+    /**
+     * @return the number of bytes of the body received so far
+     */
+    int getRawBodyLength() {
+        ByteBuf buffer = rawBuffer();
+        return buffer == null || buffer.refCnt() == 0 ? 0 : buffer.readableBytes();
+    }
+
+    private ByteBuf rawBuffer() {
+        RawBody body = raw.get();
+        return body == null ? null : body.buffer;
     }
 
     /**
@@ -591,7 +648,88 @@ public class RequestFromVertx extends Request {
         return true;
     }
 
+    /**
+     * Sets the raw body. The previous body is released if it was allocated by this class. The given buffer still
+     * belongs to the caller, and is not released by {@link #releaseRawBody()}.
+     *
+     * @param raw the body, {@code null} to clear it
+     */
     protected void setRawBody(Buffer raw) {
-        this.raw = raw;
+        release(this.raw.getAndSet(raw == null ? null : new RawBody(raw.getByteBuf(), false)));
+    }
+
+    /**
+     * Appends a chunk to the raw body. The body is stored in a pooled buffer allocated when the first chunk is
+     * received, sized from the expected length of the body to avoid reallocating it while the chunks are appended.
+     *
+     * @param chunk          the chunk
+     * @param expectedLength the expected length of the body, computed from the {@literal Content-Length} header,
+     *                       {@code -1} if unknown
+     */
+    void appendRawBody(Buffer chunk, int expectedLength) {
+        RawBody body = raw.get();
+        if (body == null || !body.owned) {
+            // The buffer set by the caller is not written, its content is copied in our own buffer.
+            int length = body == null ? 0 : body.buffer.readableBytes();
+            ByteBuf buffer = PooledByteBufAllocator.DEFAULT.buffer(Math.max(expectedLength, length + chunk.length()));
+            if (body != null) {
+                buffer.writeBytes(body.buffer, body.buffer.readerIndex(), length);
+            }
+            body = new RawBody(buffer, true);
+            raw.set(body);
+        }
+        body.buffer.writeBytes(chunk.getByteBuf());
+    }
+
+    /**
+     * Releases the raw body. The body is empty afterwards. This method can be called several times.
+     */
+    void releaseRawBody() {
+        release(raw.getAndSet(null));
+    }
+
+    private static void release(RawBody body) {
+        if (body != null && body.owned && body.buffer.refCnt() > 0) {
+            body.buffer.release();
+        }
+    }
+
+    /**
+     * @return the stream reading the body while it's received, {@code null} if the body is not streamed.
+     */
+    public RequestBodyStream getBodyStream() {
+        return bodyStream;
+    }
+
+    protected void setBodyStream(RequestBodyStream stream) {
+        this.bodyStream = stream;
+    }
+
+    /**
+     * A value computed from a request attribute (uri, header...), and the attribute value used to compute it.
+     *
+     * @param <T> the type of value
+     */
+    private static final class Memo<T> {
+        private final String key;
+        private final T value;
+
+        private Memo(String key, T value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * The raw body, and whether its buffer was allocated by this class (and so must be released by this class).
+     */
+    private static final class RawBody {
+        private final ByteBuf buffer;
+        private final boolean owned;
+
+        private RawBody(ByteBuf buffer, boolean owned) {
+            this.buffer = buffer;
+            this.owned = owned;
+        }
     }
 }
@@ -36,7 +36,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Class representing the server configuration and configuring the server.
@@ -81,6 +84,16 @@ public class Server {
      */
     private final ApplicationConfiguration configuration;
 
+    /**
+     * The configuration values used while handling requests.
+     */
+    private final EngineSettings settings;
+
+    /**
+     * The limiter bounding the number of requests processed concurrently, {@code null} if not limited.
+     */
+    private final ConcurrencyLimiter limiter;
+
     /**
      * The listened port, updated once the server is bound (that's why the field is not final).
      */
@@ -97,14 +110,9 @@ public class Server {
     private final boolean authentication;
 
     /**
-     * The list of accepted patterns.
+     * The matcher compiled from the lists of accepted and denied paths.
      */
-    private List<Pattern> allow;
-
-    /**
-     * The list of denied patterns
-     */
-    private List<Pattern> deny;
+    private final PathMatcher paths;
 
     /**
      * The url on which the request is redirected when the request is denied. By default, if not set a `FORBIDDEN`
@@ -113,11 +121,27 @@ public class Server {
     private String onDenied;
 
     /**
-     * The HTTP server.
+     * The HTTP servers, one per verticle instance. They share the listened socket, so vert.x dispatches the
+     * connections among the event loops of the instances.
+     */
+    private final List<HttpServer> http = new CopyOnWriteArrayList<>();
+
+    /**
+     * The number of requests in progress, including the responses being streamed.
+     */
+    private final AtomicInteger active = new AtomicInteger();
+
+    /**
+     * Whether the server is draining: the requests are still served, but connections are not reused anymore, until
+     * the requests in progress complete and the server is closed.
      */
-    private HttpServer http;
+    private volatile boolean draining;
 
-    private Context context;
+    /**
+     * The open Server-Sent Events streams. They are long-lived, so they are not counted as requests in progress, but
+     * they are closed when the server is drained.
+     */
+    private final Set<VertxEventStream> streams = ConcurrentHashMap.newKeySet();
 
     /**
      * Creates the default HTTP server (listening on port 9000 / `http.port`), no SSL, no mutual authentication,
@@ -209,6 +233,8 @@ public class Server {
         Preconditions.checkNotNull(name);
         this.accessor = accessor;
         this.configuration = accessor.getConfiguration();
+        this.settings = new EngineSettings(configuration);
+        this.limiter = settings.createLimiter();
         this.vertx = vertx;
         this.name = name;
 
@@ -222,19 +248,7 @@ public class Server {
         this.ssl = ssl;
         this.authentication = authentication;
 
-        List<Pattern> allowedPatterns = new ArrayList<>();
-        List<Pattern> deniedPatterns = new ArrayList<>();
-
-        for (String a : allow) {
-            allowedPatterns.add(Pattern.compile(a.trim().replace(".", "\\.").replace("*", ".*")));
-        }
-
-        for (String a : deny) {
-            deniedPatterns.add(Pattern.compile(a.trim().replace(".", "\\.").replace("*", ".*")));
-        }
-
-        this.allow = allowedPatterns;
-        this.deny = deniedPatterns;
+        this.paths = new PathMatcher(allow, deny);
         this.onDenied = onDenied;
 
         this.logger = LoggerFactory.getLogger("server-" + name);
@@ -243,10 +257,13 @@ public class Server {
     /**
      * Starts the server. The server is going to try to listen on the given host / port. Startup is asynchronous. You
      * can pull {@link #port()} to know when the server has successfully be bound (in case of a random port).
+     * <p>
+     * This method is called once per verticle instance. Once the first instance is bound, the other instances
+     * listen on the same port.
      */
     public void bind(Handler<AsyncResult<Void>> completion) {
         logger.info("Starting server {}", name);
-        context = vertx.getOrCreateContext();
+        draining = false;
         bind(port, completion);
     }
 
@@ -286,14 +303,15 @@ public class Server {
             options.setSendBufferSize(configuration.getInteger("vertx.sendBufferSize"));
         }
 
-        http = vertx.createHttpServer(options)
+        HttpServer server = vertx.createHttpServer(options)
                 .requestHandler(new HttpHandler(vertx, accessor, this))
                 .websocketHandler(new WebSocketHandler(accessor, this));
 
-        http.listen(thePort, host, event -> {
+        server.listen(thePort, host, event -> {
             if (event.succeeded()) {
                 logger.info("Wisdom is going to serve HTTP requests on port {}.", thePort);
                 port = thePort;
+                http.add(server);
                 completion.handle(Future.succeededFuture());
             } else if (port == 0) {
                 logger.debug("Cannot bind on port {} (port already used probably)", thePort, event.cause());
@@ -312,25 +330,7 @@ public class Server {
      * @return {@code true} if the path is accepted, {@code false} otherwise.
      */
     public boolean accept(String path) {
-        if (allow.isEmpty() && deny.isEmpty()) {
-            return true;
-        }
-        // Check if the path is denied
-        for (Pattern p : deny) {
-            if (p.matcher(path).matches()) {
-                return false;
-            }
-        }
-
-        // Check if the path is accepted
-        for (Pattern p : allow) {
-            if (p.matcher(path).matches()) {
-                return true;
-            }
-        }
-
-        // Denied by default.
-        return !deny.isEmpty();
+        return paths.accept(path);
     }
 
     public Result getOnDeniedResult() {
@@ -363,18 +363,23 @@ public class Server {
      * Stops / Closes the server.
      */
     public void close(Handler<AsyncResult<Void>> completion) {
-        if (context == null) {
-            context = vertx.getOrCreateContext();
+        List<HttpServer> servers = new ArrayList<>(http);
+        http.removeAll(servers);
+        if (servers.isEmpty()) {
+            // Already closed by another verticle instance.
+            completion.handle(Future.<Void>succeededFuture());
+            return;
         }
 
-        context.runOnContext(v -> {
-            if (http != null) {
-                http.close(event -> {
+        AtomicInteger remaining = new AtomicInteger(servers.size());
+        for (HttpServer server : servers) {
+            server.close(event -> {
+                if (remaining.decrementAndGet() == 0) {
                     logger.info("The server '{}' has been stopped (bound port: {})", name, port);
                     completion.handle(Future.<Void>succeededFuture());
-                });
-            }
-        });
+                }
+            });
+        }
     }
 
     /**
@@ -408,7 +413,7 @@ public class Server {
      * @return whether or not the compression is enabled.
      */
     public boolean hasCompressionEnabled() {
-        return configuration.getBooleanWithDefault("vertx.compression", true);
+        return settings.compression();
     }
 
     /**
@@ -416,8 +421,7 @@ public class Server {
      * it's {@link ApplicationConfiguration#DEFAULT_ENCODING_MIN_SIZE} bytes.
      */
     public long getEncodingMinBound() {
-        return configuration.getBytes(ApplicationConfiguration.ENCODING_MIN_SIZE,
-                ApplicationConfiguration.DEFAULT_ENCODING_MIN_SIZE);
+        return settings.encodingMinBound();
     }
 
     /**
@@ -425,7 +429,106 @@ public class Server {
      * it's {@link ApplicationConfiguration#DEFAULT_ENCODING_MAX_SIZE} bytes.
      */
     public long getEncodingMaxBound() {
-        return configuration.getBytes(ApplicationConfiguration.ENCODING_MAX_SIZE,
-                ApplicationConfiguration.DEFAULT_ENCODING_MAX_SIZE);
+        return settings.encodingMaxBound();
+    }
+
+    /**
+     * @return the configuration values used while handling requests, read when the server was created.
+     */
+    EngineSettings settings() {
+        return settings;
+    }
+
+    /**
+     * @return the limiter bounding the number of requests processed concurrently, {@code null} if not limited.
+     */
+    ConcurrencyLimiter limiter() {
+        return limiter;
+    }
+
+    /**
+     * Registers a new request. The request must call {@link #leave()} once completed.
+     */
+    void enter() {
+        active.incrementAndGet();
+    }
+
+    /**
+     * Notifies the server that a request registered with {@link #enter()} has completed.
+     */
+    void leave() {
+        if (active.decrementAndGet() == 0 && draining) {
+            synchronized (active) {
+                active.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * @return the number of requests in progress, including the responses being streamed.
+     */
+    int activeRequests() {
+        return active.get();
+    }
+
+    /**
+     * @return whether the server is draining.
+     */
+    boolean isDraining() {
+        return draining;
+    }
+
+    /**
+     * Starts draining the server: the connections are closed once the current response is sent, and the event
+     * streams are closed. The server stays bound until the requests in progress complete, as closing a Vert.x HTTP
+     * server also closes its open connections (and so would abort the exchanges in flight). The requests received
+     * in the meantime are served, and also close their connection.
+     */
+    void drain() {
+        if (!draining) {
+            logger.info("Draining server {} ({} request(s) in progress)", name, active.get());
+        }
+        draining = true;
+        // The clients reconnect to another node.
+        streams.forEach(VertxEventStream::close);
+    }
+
+    /**
+     * Registers an open Server-Sent Events stream.
+     *
+     * @param stream the stream
+     */
+    void register(VertxEventStream stream) {
+        streams.add(stream);
+    }
+
+    /**
+     * Unregisters a Server-Sent Events stream once closed.
+     *
+     * @param stream the stream
+     */
+    void unregister(VertxEventStream stream) {
+        streams.remove(stream);
+    }
+
+    /**
+     * Waits until the requests in progress complete.
+     *
+     * @param deadline the time (in milliseconds, as given by {@link System#currentTimeMillis()}) after which we
+     *                 stop waiting
+     * @return {@code true} if all the requests have completed, {@code false} if the deadline was reached
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    boolean awaitCompletion(long deadline) throws InterruptedException {
+        synchronized (active) {
+            while (active.get() > 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                active.wait(remaining);
+            }
+        }
+        return true;
     }
 }
@@ -38,17 +38,26 @@ public class ServiceAccessor {
     private final Router router;
     private final ContentEngine contentEngines;
     private final ManagedExecutorService executor;
+    private final ManagedExecutorService actionExecutor;
     private final WisdomVertxServer dispatcher;
     private final Collection<ExceptionMapper> mappers;
 
     public ServiceAccessor(Crypto crypto, ApplicationConfiguration configuration, Router router,
                            ContentEngine engine, ManagedExecutorService executor, WisdomVertxServer dispatcher,
                            Collection<ExceptionMapper> mappers) {
+        this(crypto, configuration, router, engine, executor, executor, dispatcher, mappers);
+    }
+
+    public ServiceAccessor(Crypto crypto, ApplicationConfiguration configuration, Router router,
+                           ContentEngine engine, ManagedExecutorService executor,
+                           ManagedExecutorService actionExecutor, WisdomVertxServer dispatcher,
+                           Collection<ExceptionMapper> mappers) {
         this.crypto = crypto;
         this.configuration = configuration;
         this.router = router;
         this.contentEngines = engine;
         this.executor = executor;
+        this.actionExecutor = actionExecutor;
         this.dispatcher = dispatcher;
         this.mappers = mappers;
     }
@@ -73,6 +82,14 @@ public class ServiceAccessor {
         return executor;
     }
 
+    /**
+     * @return the executor running the action methods, distinct from the system executor returned by
+     * {@link #getExecutor()}
+     */
+    public ManagedExecutorService getActionExecutor() {
+        return actionExecutor;
+    }
+
     public WisdomVertxServer getDispatcher() {
         return dispatcher;
     }
@@ -0,0 +1,291 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import com.google.common.base.Preconditions;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wisdom.api.http.sse.EventStream;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An implementation of {@link EventStream} writing the events on a Vert.x response.
+ * <p>
+ * Events are formatted on the caller thread, and written on the Vert.x context of the connection, so no thread is
+ * used while the stream is idle. The number of events waiting to be written is bounded, and the stream is not
+ * writable while the response write queue is full, until the response is drained.
+ */
+final class VertxEventStream implements EventStream {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VertxEventStream.class);
+
+    /**
+     * A comment line, ignored by the clients.
+     */
+    private static final String HEARTBEAT = ":\n\n";
+
+    private final Vertx vertx;
+    private final io.vertx.core.Context context;
+    private final HttpServerResponse response;
+    private final Server server;
+
+    /**
+     * The maximum number of events waiting to be written.
+     */
+    private final int capacity;
+
+    /**
+     * The number of events sent, but not written yet.
+     */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * Set when the stream is closed, or is being closed.
+     */
+    private final AtomicBoolean closing = new AtomicBoolean();
+
+    private final List<Runnable> closeHandlers = new CopyOnWriteArrayList<>();
+
+    private volatile Runnable writableHandler;
+
+    /**
+     * Whether the response write queue is full.
+     */
+    private volatile boolean full;
+
+    /**
+     * Whether the writable handler must be called once the stream becomes writable.
+     */
+    private volatile boolean blocked;
+
+    /**
+     * Whether the stream has been terminated (only updated on the Vert.x context).
+     */
+    private volatile boolean terminated;
+
+    /**
+     * The heartbeat timer, and whether something has been written since the last heartbeat (only accessed on the
+     * Vert.x context).
+     */
+    private long timer = -1;
+    private boolean written;
+
+    /**
+     * Creates the stream.
+     *
+     * @param vertx    the vert.x instance
+     * @param context  the vert.x context of the connection
+     * @param response the response, with the headers already written
+     * @param server   the server, notified when the stream is terminated
+     * @param capacity the maximum number of events waiting to be written
+     */
+    VertxEventStream(Vertx vertx, io.vertx.core.Context context, HttpServerResponse response, Server server,
+                     int capacity) {
+        this.vertx = vertx;
+        this.context = context;
+        this.response = response;
+        this.server = server;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Sends the response headers, and starts the heartbeats and the back-pressure management. Must be called on the
+     * Vert.x context.
+     *
+     * @param heartbeat the delay between two heartbeats in milliseconds, {@literal 0} or negative to disable them
+     */
+    void start(long heartbeat) {
+        response.drainHandler(v -> {
+            full = false;
+            notifyIfWritable();
+        });
+        // The headers are sent with the first write.
+        write(Buffer.buffer(HEARTBEAT));
+        if (heartbeat > 0) {
+            timer = vertx.setPeriodic(heartbeat, id -> {
+                if (!written && !full) {
+                    write(Buffer.buffer(HEARTBEAT));
+                }
+                written = false;
+            });
+        }
+    }
+
+    @Override
+    public boolean send(String data) {
+        return send(null, null, data);
+    }
+
+    @Override
+    public boolean send(String event, String data) {
+        return send(null, event, data);
+    }
+
+    @Override
+    public boolean send(String id, String event, String data) {
+        // A line break would inject other fields or events, and the specification ignores identifiers containing NUL.
+        Preconditions.checkArgument(id == null || id.indexOf('\r') == -1 && id.indexOf('\n') == -1
+                && id.indexOf('\0') == -1, "The event identifier must not contain CR, LF or NUL characters");
+        Preconditions.checkArgument(event == null || event.indexOf('\r') == -1 && event.indexOf('\n') == -1,
+                "The event name must not contain CR or LF characters");
+        if (closing.get()) {
+            return false;
+        }
+        if (full) {
+            blocked = true;
+            return false;
+        }
+        if (pending.incrementAndGet() > capacity) {
+            pending.decrementAndGet();
+            blocked = true;
+            return false;
+        }
+        Buffer buffer = Buffer.buffer(format(id, event, data), "UTF-8");
+        context.runOnContext(v -> {
+            pending.decrementAndGet();
+            write(buffer);
+            notifyIfWritable();
+        });
+        return true;
+    }
+
+    /**
+     * Formats the event according to the Server-Sent Events specification.
+     *
+     * @param id    the identifier, {@code null} if none
+     * @param event the event name, {@code null} if none
+     * @param data  the data
+     * @return the formatted event
+     */
+    static String format(String id, String event, String data) {
+        StringBuilder builder = new StringBuilder(data == null ? 16 : data.length() + 16);
+        if (id != null) {
+            builder.append("id: ").append(id).append('\n');
+        }
+        if (event != null) {
+            builder.append("event: ").append(event).append('\n');
+        }
+        if (data != null) {
+            for (String line : data.split("\r\n|\r|\n", -1)) {
+                builder.append("data: ").append(line).append('\n');
+            }
+        }
+        return builder.append('\n').toString();
+    }
+
+    private void write(Buffer buffer) {
+        if (terminated) {
+            return;
+        }
+        response.write(buffer);
+        written = true;
+        if (response.writeQueueFull()) {
+            full = true;
+            blocked = true;
+        }
+    }
+
+    private void notifyIfWritable() {
+        Runnable handler = writableHandler;
+        if (blocked && handler != null && isWritable()) {
+            blocked = false;
+            handler.run();
+        }
+    }
+
+    @Override
+    public boolean isWritable() {
+        boolean writable = !closing.get() && !full && pending.get() < capacity;
+        if (!writable) {
+            blocked = true;
+        }
+        return writable;
+    }
+
+    @Override
+    public EventStream onWritable(Runnable handler) {
+        this.writableHandler = handler;
+        return this;
+    }
+
+    @Override
+    public EventStream onClose(Runnable handler) {
+        closeHandlers.add(handler);
+        if (terminated && closeHandlers.remove(handler)) {
+            // Already closed.
+            handler.run();
+        }
+        return this;
+    }
+
+    @Override
+    public void close() {
+        if (closing.compareAndSet(false, true)) {
+            // Executed after the writes of the events sent before.
+            context.runOnContext(v -> {
+                if (!terminated) {
+                    response.end();
+                    if (server.isDraining()) {
+                        response.close();
+                    }
+                    terminate();
+                }
+            });
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closing.get();
+    }
+
+    /**
+     * Callback called on the Vert.x context when the underlying connection is closed.
+     */
+    void closed() {
+        closing.set(true);
+        if (!terminated) {
+            terminate();
+        }
+    }
+
+    private void terminate() {
+        terminated = true;
+        if (timer != -1) {
+            vertx.cancelTimer(timer);
+        }
+        server.unregister(this);
+        for (Runnable handler : closeHandlers) {
+            closeHandlers.remove(handler);
+            try {
+                handler.run();
+            } catch (Exception e) { //NOSONAR
+                LOGGER.error("Error in the close handler of an event stream", e);
+            }
+        }
+    }
+}
@@ -19,6 +19,7 @@
  */
 package org.wisdom.framework.vertx;
 
+import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Vertx;
 import io.vertx.core.spi.VerticleFactory;
 import org.apache.felix.ipojo.annotations.*;
@@ -29,6 +30,7 @@ import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.api.configuration.Configuration;
 import org.wisdom.api.content.ContentEngine;
 import org.wisdom.api.crypto.Crypto;
+import org.wisdom.api.engine.AdmissionStatistics;
 import org.wisdom.api.engine.WisdomEngine;
 import org.wisdom.api.exceptions.ExceptionMapper;
 import org.wisdom.api.http.websockets.WebSocketDispatcher;
@@ -37,6 +39,9 @@ import org.wisdom.api.router.Router;
 
 import java.net.InetAddress;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 
 /**
@@ -47,7 +52,7 @@ import java.util.*;
 @Component
 @Provides
 @Instantiate
-public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
+public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine, AdmissionStatistics {
 
 
     private static final Logger LOGGER = LoggerFactory.getLogger(WisdomVertxServer.class);
@@ -62,6 +67,14 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
      */
     private Map<String, List<Socket>> socketsByUri = new HashMap<>();
 
+    /**
+     * The index of the opened web sockets by uri and client id, used to send messages to a specific client without
+     * iterating over all the sockets opened on the uri. It's updated with {@link #socketsByUri} (while holding the
+     * lock), but read without locking. Ids are computed from hash codes, so several sockets may share the same id.
+     */
+    private final ConcurrentMap<String, ConcurrentMap<String, List<Socket>>> socketsByClient =
+            new ConcurrentHashMap<>();
+
     /**
      * The vertx singleton.
      */
@@ -98,6 +111,13 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
     @Requires(filter = "(name=" + ManagedExecutorService.SYSTEM + ")")
     private ManagedExecutorService executor;
 
+    /**
+     * The thread pool running the action methods, configured with
+     * {@literal pools.executors.wisdom-actions-executor}.
+     */
+    @Requires(filter = "(name=" + ManagedExecutorService.ACTIONS + ")")
+    private ManagedExecutorService actions;
+
     /**
      * The exception mappers.
      */
@@ -108,12 +128,16 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
      * The accessor to get all the services.
      */
     ServiceAccessor accessor = new ServiceAccessor(crypto, configuration, router,
-            engine, executor, this, mappers); //NOSONAR
+            engine, executor, actions, this, mappers); //NOSONAR
 
     private InetAddress address;
 
     protected List<Server> servers = new ArrayList<>(2);
-    private String deploymentId;
+
+    /**
+     * The identifiers of the deployments of the Wisdom verticle.
+     */
+    private final List<String> deploymentIds = new CopyOnWriteArrayList<>();
 
     /**
      * Starts the servers (HTTP and HTTPS).
@@ -167,9 +191,27 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
             vertx.registerVerticleFactory(new WisdomInternalVerticleFactory(accessor, this.servers));
         }
 
+        // Each instance of the verticle runs on its own event loop, and the instances share the listened sockets.
+        int instances = accessor.getConfiguration().getIntegerWithDefault("vertx.http.instances",
+                Runtime.getRuntime().availableProcessors());
+
+        // The first instance is deployed alone, so the other instances reuse the port it has picked (random port).
         vertx.runOnContext(v -> vertx.deployVerticle("wisdom-internal:wisdom", ar -> {
             LOGGER.info("Wisdom verticle deployed : " + ar.result());
-            deploymentId = ar.result();
+            if (ar.failed()) {
+                return;
+            }
+            deploymentIds.add(ar.result());
+            if (instances > 1) {
+                vertx.deployVerticle("wisdom-internal:wisdom", new DeploymentOptions().setInstances(instances - 1),
+                        other -> {
+                            LOGGER.info("{} additional instance(s) of the Wisdom verticle deployed : {}",
+                                    instances - 1, other.result());
+                            if (other.succeeded()) {
+                                deploymentIds.add(other.result());
+                            }
+                        });
+            }
         }));
     }
 
@@ -190,21 +232,57 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
     }
 
     /**
-     * Stops the different servers.
+     * Stops the different servers. The servers are drained first: the connections are not reused anymore, and the
+     * requests in progress are given {@literal vertx.drain.timeout} milliseconds (10 seconds by default) to complete
+     * before the servers are closed.
+     * <p>
+     * This method blocks the calling (iPOJO) thread while draining, so stopping the bundle, or the framework, takes
+     * up to {@literal vertx.drain.timeout} milliseconds. Set it to 0 to close the servers immediately.
      */
     @Invalidate
     public void stop() {
         listeners.clear();
         LOGGER.info("Stopping the vert.x server");
 
+        drain();
+
         vertx.runOnContext(v -> {
-            if (deploymentId != null) {
+            for (String deploymentId : deploymentIds) {
                 vertx.undeploy(deploymentId, ar -> LOGGER.info("Wisdom verticle un-deployed"));
             }
+            deploymentIds.clear();
         });
 
     }
 
+    /**
+     * Drains the servers, and waits until the requests in progress complete, or the deadline is reached.
+     */
+    private void drain() {
+        List<Server> list;
+        synchronized (this) {
+            list = new ArrayList<>(servers);
+        }
+        list.forEach(Server::drain);
+
+        long timeout = accessor.getConfiguration().getIntegerWithDefault("vertx.drain.timeout", 10000);
+        if (timeout <= 0) {
+            return;
+        }
+        long deadline = System.currentTimeMillis() + timeout;
+        try {
+            for (Server server : list) {
+                if (!server.awaitCompletion(deadline)) {
+                    LOGGER.warn("{} request(s) still in progress on server {} after {} ms, closing it anyway",
+                            server.activeRequests(), server.name(), timeout);
+                }
+            }
+        } catch (InterruptedException e) {
+            LOGGER.warn("Interrupted while draining the servers");
+            Thread.currentThread().interrupt();
+        }
+    }
+
     /**
      * @return the hostname.
      */
@@ -242,6 +320,60 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
         return -1;
     }
 
+    /**
+     * @return the sum of the limits of the servers limiting the number of concurrent requests, {@literal -1} if
+     * none of them does.
+     */
+    @Override
+    public synchronized int getConcurrencyLimit() {
+        int limit = -1;
+        for (Server server : servers) {
+            if (server.limiter() != null) {
+                limit = Math.max(limit, 0) + server.limiter().limit();
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * @return the number of requests in progress on the servers, including the responses being streamed.
+     */
+    @Override
+    public synchronized int getInFlightRequests() {
+        int count = 0;
+        for (Server server : servers) {
+            count += server.activeRequests();
+        }
+        return count;
+    }
+
+    /**
+     * @return whether the servers are draining.
+     */
+    @Override
+    public synchronized boolean isDraining() {
+        for (Server server : servers) {
+            if (server.isDraining()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of requests rejected by the servers because too many requests were in progress.
+     */
+    @Override
+    public synchronized long getRejectedRequests() {
+        long count = 0;
+        for (Server server : servers) {
+            if (server.limiter() != null) {
+                count += server.limiter().rejected();
+            }
+        }
+        return count;
+    }
+
     /**
      * Publishes the given message to all clients subscribed to the socket (either a web socket of a SockJS socket)
      * specified using its url. For SockJS, it must match one of the configured prefix.
@@ -304,6 +436,15 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
             }
             channels.add(socket);
             socketsByUri.put(url, channels);
+            Map<String, List<Socket>> clients = socketsByClient.computeIfAbsent(url, k -> new ConcurrentHashMap<>());
+            List<Socket> sockets = clients.get(id(socket));
+            if (sockets == null) {
+                clients.put(id(socket), Collections.singletonList(socket));
+            } else {
+                List<Socket> copy = new ArrayList<>(sockets);
+                copy.add(socket);
+                clients.put(id(socket), Collections.unmodifiableList(copy));
+            }
             webSocketListeners = new ArrayList<>(this.listeners);
         }
 
@@ -329,6 +470,22 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
                     socketsByUri.remove(url);
                 }
             }
+            Map<String, List<Socket>> clients = socketsByClient.get(url);
+            if (clients != null) {
+                List<Socket> sockets = clients.get(id(socket));
+                if (sockets != null) {
+                    List<Socket> copy = new ArrayList<>(sockets);
+                    copy.remove(socket);
+                    if (copy.isEmpty()) {
+                        clients.remove(id(socket));
+                    } else {
+                        clients.put(id(socket), Collections.unmodifiableList(copy));
+                    }
+                }
+                if (clients.isEmpty()) {
+                    socketsByClient.remove(url);
+                }
+            }
             webSocketListeners = new ArrayList<>(this.listeners);
         }
 
@@ -381,20 +538,25 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
      */
     @Override
     public void send(String uri, String client, String message) {
-        List<Socket> sockets;
-        synchronized (this) {
-            List<Socket> ch = this.socketsByUri.get(uri);
-            if (ch != null) {
-                sockets = new ArrayList<>(ch);
-            } else {
-                sockets = Collections.emptyList();
-            }
+        for (Socket socket : sockets(uri, client)) {
+            socket.publish(message, vertx.eventBus());
         }
-        for (Socket socket : sockets) {
-            if (client.equals(id(socket))) {
-                socket.publish(message, vertx.eventBus());
-            }
+    }
+
+    /**
+     * Gets the sockets opened on the given uri by the given client.
+     *
+     * @param uri    the web socket url
+     * @param client the client id
+     * @return the sockets, empty if none
+     */
+    private List<Socket> sockets(String uri, String client) {
+        Map<String, List<Socket>> clients = socketsByClient.get(uri);
+        if (clients == null) {
+            return Collections.emptyList();
         }
+        List<Socket> sockets = clients.get(client);
+        return sockets == null ? Collections.<Socket>emptyList() : sockets;
     }
 
     /**
@@ -417,19 +579,8 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
      */
     @Override
     public void send(String uri, String client, byte[] message) {
-        List<Socket> sockets;
-        synchronized (this) {
-            List<Socket> ch = this.socketsByUri.get(uri);
-            if (ch != null) {
-                sockets = new ArrayList<>(ch);
-            } else {
-                sockets = Collections.emptyList();
-            }
-        }
-        for (Socket socket : sockets) {
-            if (client.equals(id(socket))) {
-                socket.publish(message, vertx.eventBus());
-            }
+        for (Socket socket : sockets(uri, client)) {
+            socket.publish(message, vertx.eventBus());
         }
     }
 
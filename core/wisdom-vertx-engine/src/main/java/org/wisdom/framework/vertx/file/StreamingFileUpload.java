@@ -0,0 +1,325 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx.file;
+
+import com.google.common.io.BaseEncoding;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.http.HttpServerFileUpload;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wisdom.api.http.DiskFileItem;
+import org.wisdom.api.http.Result;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * An implementation of {@link org.wisdom.api.http.FileItem} writing the uploaded file straight to disk, without
+ * keeping it in memory. The chunks are written to an {@link AsyncFile} as they are received, and the request is paused
+ * while the file write queue is full. The size and the digest of the content are computed on the fly.
+ * <p>
+ * Unlike {@link MixedFileUpload}, the memory used by an upload does not depend on its size.
+ */
+public class StreamingFileUpload extends VertxFileUpload implements DiskFileItem {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StreamingFileUpload.class);
+
+    /**
+     * The Vert.X instance.
+     */
+    private final Vertx vertx;
+
+    /**
+     * The temporary file.
+     */
+    private final File file;
+
+    /**
+     * The current location of the file, changed when the file is moved.
+     */
+    private volatile File location;
+
+    /**
+     * The max allowed size, {@literal -1} for no limit.
+     */
+    private final long maxSize;
+
+    private final MessageDigest digest;
+
+    private volatile long size;
+
+    private volatile String hash;
+
+    /**
+     * The async file used to write the data, {@code null} until opened.
+     */
+    private AsyncFile async;
+
+    /**
+     * Whether the async file has been closed, or is being closed.
+     */
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    /**
+     * Whether the file is written completely (or has failed), and the handler to call once completed. They are only
+     * accessed from the Vert.x context of the request.
+     */
+    private boolean completed;
+    private Handler<Void> completionHandler;
+
+    /**
+     * Creates an instance of {@link StreamingFileUpload}, and starts writing the file.
+     *
+     * @param vertx        the Vert.X instance
+     * @param upload       the Vert.X file upload object
+     * @param maxSize      the max allowed size, {@literal -1} for no limit
+     * @param errorHandler the error handler
+     */
+    public StreamingFileUpload(Vertx vertx, HttpServerFileUpload upload, long maxSize,
+                               Handler<Result> errorHandler) {
+        super(upload, errorHandler);
+        this.vertx = vertx;
+        this.maxSize = maxSize;
+        this.file = DiskFileUpload.tempFile(upload);
+        this.location = file;
+        this.digest = sha256();
+
+        // The data received while the file is opened is buffered by the upload.
+        upload.pause();
+        upload.exceptionHandler(t -> LOGGER.error("Cannot read the uploaded item {} ({})", upload.name(),
+                upload.filename(), t));
+        vertx.fileSystem().open(file.getAbsolutePath(), new OpenOptions().setCreate(true).setWrite(true), ar -> {
+            if (ar.failed()) {
+                LOGGER.error("Cannot open {}", file.getAbsolutePath(), ar.cause());
+                // Consume the upload anyway.
+                upload.handler(buffer -> {
+                    // Discarded.
+                });
+                upload.endHandler(v -> complete());
+                failed(ar.cause());
+            } else {
+                async = ar.result();
+                async.exceptionHandler(t -> {
+                    LOGGER.error("Cannot write into {}", file.getAbsolutePath(), t);
+                    failed(t);
+                });
+                upload.handler(this::write);
+                upload.endHandler(v -> finish());
+            }
+            upload.resume();
+        });
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is part of the JVM specification.
+            throw new IllegalStateException("SHA-256 not supported", e);
+        }
+    }
+
+    /**
+     * Writes a chunk. The upload is paused until the chunk is written if the write queue is full.
+     *
+     * @param buffer the chunk
+     */
+    private void write(Buffer buffer) {
+        if (error != null) {
+            // Discard the rest of the upload.
+            return;
+        }
+        long newSize = size + buffer.length();
+        if (maxSize >= 0 && newSize > maxSize) {
+            report(new IllegalStateException("Size exceed allowed maximum capacity"));
+            return;
+        }
+        size = newSize;
+        digest.update(buffer.getByteBuf().nioBuffer());
+        async.write(buffer);
+        if (async.writeQueueFull()) {
+            upload.pause();
+            async.drainHandler(v -> upload.resume());
+        }
+    }
+
+    /**
+     * The upload is completed, closes the file once the data is written.
+     */
+    private void finish() {
+        if (error != null || !closed.compareAndSet(false, true)) {
+            // Failed or interrupted.
+            complete();
+            return;
+        }
+        hash = BaseEncoding.base16().lowerCase().encode(digest.digest());
+        async.close(ar -> {
+            if (ar.failed()) {
+                LOGGER.error("Cannot close {}", file.getAbsolutePath(), ar.cause());
+                hash = null;
+                failed(ar.cause());
+            }
+            complete();
+        });
+    }
+
+    /**
+     * The file cannot be written, the request is answered with an error (only once, for the first failure), and
+     * the rest of the upload is discarded. The upload is resumed, as it may have been paused waiting for the write
+     * queue to drain, so the request is always read completely.
+     *
+     * @param t the failure
+     */
+    private void failed(Throwable t) {
+        if (error == null) {
+            fail(t);
+        }
+        upload.resume();
+    }
+
+    private void complete() {
+        completed = true;
+        Handler<Void> handler = completionHandler;
+        if (handler != null) {
+            completionHandler = null;
+            handler.handle(null);
+        }
+    }
+
+    /**
+     * Calls the given handler once the file has been written and closed.
+     *
+     * @param handler the handler
+     */
+    @Override
+    public void whenCompleted(Handler<Void> handler) {
+        if (completed) {
+            handler.handle(null);
+        } else {
+            completionHandler = handler;
+        }
+    }
+
+    /**
+     * Deletes the file, unless it has been moved.
+     */
+    @Override
+    public void cleanup() {
+        if (async != null && closed.compareAndSet(false, true)) {
+            // The upload has been interrupted.
+            vertx.runOnContext(v -> async.close());
+        }
+        if (location == file) {
+            FileUtils.deleteQuietly(file);
+        }
+    }
+
+    /**
+     * @return the SHA-256 digest of the content, {@code null} if the upload is not completed.
+     */
+    @Override
+    public String hash() {
+        return hash;
+    }
+
+    @Override
+    public synchronized File moveTo(File destination) throws IOException {
+        try {
+            Files.move(location.toPath(), destination.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) { //NOSONAR
+            // Not on the same file system, the file is copied.
+            Files.move(location.toPath(), destination.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        location = destination;
+        return destination;
+    }
+
+    /**
+     * Gets the bytes.
+     *
+     * @return the full content of the file.
+     */
+    @Override
+    public byte[] bytes() {
+        try {
+            return FileUtils.readFileToByteArray(location);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Opens an input stream on the file.
+     *
+     * @return an input stream to read the content of the uploaded item.
+     */
+    @Override
+    public InputStream stream() {
+        try {
+            return new FileInputStream(location);
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return {@literal false}, the content is on disk.
+     */
+    @Override
+    public boolean isInMemory() {
+        return false;
+    }
+
+    /**
+     * Gets the size of the uploaded item.
+     *
+     * @return the number of bytes received.
+     */
+    @Override
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Gets the uploaded file. It's a temporary file, deleted when the request completes, unless moved using
+     * {@link #moveTo(File)}.
+     *
+     * @return the file
+     */
+    @Override
+    public File toFile() {
+        return location;
+    }
+}
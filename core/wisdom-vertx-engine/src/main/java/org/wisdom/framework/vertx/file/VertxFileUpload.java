@@ -62,6 +62,18 @@ public abstract class VertxFileUpload implements FileItem {
                 .as(MimeTypes.TEXT));
     }
 
+    /**
+     * Reports a failure while storing the uploaded file. The request is answered with a
+     * {@literal 500 - Internal Server Error} response, and not dispatched.
+     *
+     * @param t the failure
+     */
+    protected void fail(Throwable t) {
+        error = t;
+        errorHandler.handle(new Result(Status.INTERNAL_SERVER_ERROR).render("Cannot store the uploaded file")
+                .as(MimeTypes.TEXT));
+    }
+
     /**
      * The field name from the form.
      *
@@ -117,6 +129,16 @@ public abstract class VertxFileUpload implements FileItem {
         return error;
     }
 
+    /**
+     * Calls the given handler once the uploaded item has been stored completely, so it can be read. The default
+     * implementation calls the handler right away.
+     *
+     * @param handler the handler
+     */
+    public void whenCompleted(Handler<Void> handler) {
+        handler.handle(null);
+    }
+
     /**
      * Method called when the uploaded items are not used anymore. A cleanup policy may be provided,
      * for example removing the files created on the file system.
@@ -19,6 +19,7 @@
  */
 package org.wisdom.framework.vertx;
 
+import com.google.common.base.Charsets;
 import io.vertx.core.Handler;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpClientOptions;
@@ -31,20 +32,28 @@ import org.wisdom.api.DefaultController;
 import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.api.content.ContentEngine;
 import org.wisdom.api.exceptions.ExceptionMapper;
+import org.wisdom.api.http.HeaderNames;
 import org.wisdom.api.http.HttpMethod;
 import org.wisdom.api.http.Request;
 import org.wisdom.api.http.Result;
 import org.wisdom.api.router.Route;
 import org.wisdom.api.router.RouteBuilder;
+import org.wisdom.api.router.RouteMatch;
 import org.wisdom.api.router.Router;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
+import java.net.Socket;
 import java.net.URL;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.zip.ZipEntry;
@@ -99,7 +108,8 @@ public class ChunkedResponseTest extends VertxBaseTest {
         Route route = new RouteBuilder().route(HttpMethod.GET)
                 .on("/")
                 .to(controller, "index");
-        when(router.getRouteFor(anyString(), anyString(), any(Request.class))).thenReturn(route);
+        when(router.match(any(HttpMethod.class), anyString(), any(Request.class)))
+                .thenReturn(new RouteMatch(route, null));
 
         ContentEngine contentEngine = getMockContentEngine();
 
@@ -164,7 +174,8 @@ public class ChunkedResponseTest extends VertxBaseTest {
         Route route = new RouteBuilder().route(HttpMethod.GET)
                 .on("/")
                 .to(controller, "index");
-        when(router.getRouteFor(anyString(), anyString(), any(Request.class))).thenReturn(route);
+        when(router.match(any(HttpMethod.class), anyString(), any(Request.class)))
+                .thenReturn(new RouteMatch(route, null));
 
         // Configure the server.
         server = new WisdomVertxServer();
@@ -227,7 +238,8 @@ public class ChunkedResponseTest extends VertxBaseTest {
         final Route route = new RouteBuilder().route(HttpMethod.GET)
                 .on("/")
                 .to(controller, "index");
-        doAnswer(invocationOnMock -> route).when(router).getRouteFor(anyString(), anyString(), any(Request.class));
+        doAnswer(invocationOnMock -> new RouteMatch(route, null))
+                .when(router).match(any(HttpMethod.class), anyString(), any(Request.class));
 
         // Configure the server.
         server = new WisdomVertxServer();
@@ -290,7 +302,8 @@ public class ChunkedResponseTest extends VertxBaseTest {
         final Route route = new RouteBuilder().route(HttpMethod.GET)
                 .on("/")
                 .to(controller, "index");
-        doAnswer(invocationOnMock -> route).when(router).getRouteFor(anyString(), anyString(), any(Request.class));
+        doAnswer(invocationOnMock -> new RouteMatch(route, null))
+                .when(router).match(any(HttpMethod.class), anyString(), any(Request.class));
 
 
         // Configure the server.
@@ -327,6 +340,62 @@ public class ChunkedResponseTest extends VertxBaseTest {
         assertThat(success).hasSize(NUMBER_OF_CLIENTS);
     }
 
+    @Test
+    public void testThatFilesAreSentWithTheirLength() throws InterruptedException, IOException {
+
+        // Prepare the configuration
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        when(configuration.getIntegerWithDefault(eq("vertx.http.port"), anyInt())).thenReturn(0);
+        when(configuration.getIntegerWithDefault(eq("vertx.https.port"), anyInt())).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.acceptBacklog", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.receiveBufferSize", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.sendBufferSize", -1)).thenReturn(-1);
+        when(configuration.getStringArray("wisdom.websocket.subprotocols")).thenReturn(new String[0]);
+        when(configuration.getStringArray("vertx.websocket-subprotocols")).thenReturn(new String[0]);
+
+        final File file = new File("src/test/resources/owl.png");
+        // Prepare the router with a controller
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() throws IOException {
+                return ok(file);
+            }
+        };
+
+        Router router = mock(Router.class);
+        final Route route = new RouteBuilder().route(HttpMethod.GET)
+                .on("/")
+                .to(controller, "index");
+        doAnswer(invocationOnMock -> new RouteMatch(route, null))
+                .when(router).match(any(HttpMethod.class), anyString(), any(Request.class));
+
+        // Configure the server.
+        server = new WisdomVertxServer();
+        server.configuration = configuration;
+        server.accessor = new ServiceAccessor(
+                null,
+                configuration,
+                router,
+                getMockContentEngine(),
+                executor,
+                null,
+                Collections.<ExceptionMapper>emptyList()
+        );
+        server.vertx = vertx;
+
+        server.start();
+
+        VertxHttpServerTest.waitForStart(server);
+
+        URL url = new URL("http://localhost:" + server.httpPort() + "/");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        // The file is not sent using the chunked transfer encoding.
+        assertThat(connection.getHeaderField("Transfer-Encoding")).isNull();
+        assertThat(connection.getHeaderField("Content-Length")).isEqualTo(Long.toString(file.length()));
+        assertThat(IOUtils.toByteArray(connection.getInputStream())).isEqualTo(FileUtils.readFileToByteArray(file));
+    }
+
     @Test
     public void testFileAsUrlDownload() throws InterruptedException, IOException {
 
@@ -353,7 +422,8 @@ public class ChunkedResponseTest extends VertxBaseTest {
         final Route route = new RouteBuilder().route(HttpMethod.GET)
                 .on("/")
                 .to(controller, "index");
-        doAnswer(invocationOnMock -> route).when(router).getRouteFor(anyString(), anyString(), any(Request.class));
+        doAnswer(invocationOnMock -> new RouteMatch(route, null))
+                .when(router).match(any(HttpMethod.class), anyString(), any(Request.class));
 
 
         // Configure the server.
@@ -393,6 +463,131 @@ public class ChunkedResponseTest extends VertxBaseTest {
         assertThat(success).hasSize(NUMBER_OF_CLIENTS);
     }
 
+    @Test
+    public void testThatChunkedResponsesKeepTheConnectionAlive() throws InterruptedException, IOException {
+        // Prepare the configuration
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        when(configuration.getIntegerWithDefault(eq("vertx.http.port"), anyInt())).thenReturn(0);
+        when(configuration.getIntegerWithDefault(eq("vertx.https.port"), anyInt())).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.acceptBacklog", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.receiveBufferSize", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.sendBufferSize", -1)).thenReturn(-1);
+        when(configuration.getStringArray("wisdom.websocket.subprotocols")).thenReturn(new String[0]);
+        when(configuration.getStringArray("vertx.websocket-subprotocols")).thenReturn(new String[0]);
+
+        final byte[] content = new byte[10000];
+        RANDOM.nextBytes(content);
+
+        // Prepare the router with a controller
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() {
+                // The length must not be sent with a chunked response.
+                return ok(new ByteArrayInputStream(content))
+                        .with(HeaderNames.CONTENT_LENGTH, Integer.toString(content.length));
+            }
+        };
+        Router router = mock(Router.class);
+        Route route = new RouteBuilder().route(HttpMethod.GET)
+                .on("/")
+                .to(controller, "index");
+        when(router.match(any(HttpMethod.class), anyString(), any(Request.class)))
+                .thenReturn(new RouteMatch(route, null));
+
+        // Configure the server.
+        server = new WisdomVertxServer();
+        server.configuration = configuration;
+        server.accessor = new ServiceAccessor(
+                null,
+                configuration,
+                router,
+                getMockContentEngine(),
+                executor,
+                null,
+                Collections.<ExceptionMapper>emptyList()
+        );
+        server.vertx = vertx;
+        server.start();
+
+        VertxHttpServerTest.waitForStart(server);
+
+        // Send two requests on the same connection.
+        try (Socket socket = new Socket("localhost", server.httpPort())) {
+            socket.setSoTimeout(10000);
+            OutputStream out = socket.getOutputStream();
+            InputStream in = socket.getInputStream();
+            for (int i = 0; i < 2; i++) {
+                out.write(("GET / HTTP/1.1\r\nHost: localhost\r\n\r\n").getBytes(Charsets.US_ASCII));
+                out.flush();
+
+                assertThat(readLine(in)).isEqualTo("HTTP/1.1 200 OK");
+                Map<String, String> headers = new HashMap<>();
+                String line;
+                while (!(line = readLine(in)).isEmpty()) {
+                    int index = line.indexOf(':');
+                    headers.put(line.substring(0, index).trim().toLowerCase(), line.substring(index + 1).trim());
+                }
+                assertThat(headers.get("transfer-encoding")).isEqualTo("chunked");
+                assertThat(headers).doesNotContainKey("content-length");
+                assertThat(headers.get("connection")).isEqualToIgnoringCase("keep-alive");
+                assertThat(readChunks(in)).isEqualTo(content);
+            }
+        }
+
+        // HTTP/1.0 does not support the chunked encoding, the end of the response is the end of the connection.
+        try (Socket socket = new Socket("localhost", server.httpPort())) {
+            socket.setSoTimeout(10000);
+            OutputStream out = socket.getOutputStream();
+            InputStream in = socket.getInputStream();
+            out.write(("GET / HTTP/1.0\r\nConnection: keep-alive\r\n\r\n").getBytes(Charsets.US_ASCII));
+            out.flush();
+
+            assertThat(readLine(in)).startsWith("HTTP/1.");
+            Map<String, String> headers = new HashMap<>();
+            String line;
+            while (!(line = readLine(in)).isEmpty()) {
+                int index = line.indexOf(':');
+                headers.put(line.substring(0, index).trim().toLowerCase(), line.substring(index + 1).trim());
+            }
+            assertThat(headers).doesNotContainKey("transfer-encoding");
+            assertThat(headers).doesNotContainKey("content-length");
+            assertThat(headers.get("connection")).isEqualToIgnoringCase("close");
+            assertThat(IOUtils.toByteArray(in)).isEqualTo(content);
+        }
+    }
+
+    private static byte[] readChunks(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        while (true) {
+            String size = readLine(in);
+            int extension = size.indexOf(';');
+            int length = Integer.parseInt(extension == -1 ? size : size.substring(0, extension), 16);
+            if (length == 0) {
+                // The last chunk is followed by the (empty) trailer.
+                assertThat(readLine(in)).isEmpty();
+                return body.toByteArray();
+            }
+            byte[] chunk = new byte[length];
+            IOUtils.readFully(in, chunk);
+            body.write(chunk);
+            assertThat(readLine(in)).isEmpty();
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c == -1) {
+                throw new EOFException("Connection closed");
+            }
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return line.toString();
+    }
+
     private class DownloadClient implements Runnable {
         private final CountDownLatch startSignal;
         private final CountDownLatch doneSignal;
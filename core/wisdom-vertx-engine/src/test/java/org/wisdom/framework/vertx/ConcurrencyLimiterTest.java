@@ -0,0 +1,83 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the admission control.
+ */
+public class ConcurrencyLimiterTest {
+
+    @Test
+    public void testFixedLimit() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, false, 0, 100);
+        ConcurrencyLimiter.Permit p1 = limiter.tryAcquire();
+        ConcurrencyLimiter.Permit p2 = limiter.tryAcquire();
+        assertThat(p1).isNotNull();
+        assertThat(p2).isNotNull();
+        assertThat(limiter.inFlight()).isEqualTo(2);
+
+        assertThat(limiter.tryAcquire()).isNull();
+        assertThat(limiter.rejected()).isEqualTo(1);
+
+        p1.release();
+        // Releasing twice has no effect.
+        p1.release();
+        assertThat(limiter.inFlight()).isEqualTo(1);
+        assertThat(limiter.tryAcquire()).isNotNull();
+        assertThat(limiter.tryAcquire()).isNull();
+        assertThat(limiter.rejected()).isEqualTo(2);
+        assertThat(limiter.limit()).isEqualTo(2);
+    }
+
+    @Test
+    public void testThatTheAdaptiveLimitIncreasesWhenFast() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, true, 4, 10000);
+        for (int i = 0; i < 10; i++) {
+            ConcurrencyLimiter.Permit p1 = limiter.tryAcquire();
+            ConcurrencyLimiter.Permit p2 = limiter.tryAcquire();
+            p1.release();
+            p2.release();
+        }
+        // Bounded by the maximum.
+        assertThat(limiter.limit()).isEqualTo(4);
+        assertThat(limiter.inFlight()).isEqualTo(0);
+    }
+
+    @Test
+    public void testThatTheAdaptiveLimitDecreasesWhenSlow() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(100, true, 100, 1);
+        ConcurrencyLimiter.Permit p1 = limiter.tryAcquire();
+        ConcurrencyLimiter.Permit p2 = limiter.tryAcquire();
+        Thread.sleep(10);
+        p1.release();
+        // A burst of slow requests only decreases the limit once.
+        p2.release();
+        assertThat(limiter.limit()).isEqualTo(90);
+
+        ConcurrencyLimiter.Permit p3 = limiter.tryAcquire();
+        Thread.sleep(10);
+        p3.release();
+        assertThat(limiter.limit()).isEqualTo(81);
+    }
+}
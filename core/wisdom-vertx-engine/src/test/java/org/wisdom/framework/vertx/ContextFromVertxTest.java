@@ -24,6 +24,7 @@ import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpVersion;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
@@ -38,6 +39,8 @@ import org.wisdom.api.router.Route;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class ContextFromVertxTest {
@@ -85,6 +88,72 @@ public class ContextFromVertxTest {
         assertThat(context.request()).isNotNull();
     }
 
+    @Test
+    public void testThatThePermitIsKeptWhileTheActionIsRunning() throws Exception {
+        HttpRequest req = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, false, 0, 100);
+
+        ContextFromVertx context = new ContextFromVertx(vertx, vertx.getOrCreateContext(), accessor,
+                RequestFromVertXTest.create(req));
+        context.admitted(limiter.tryAcquire());
+        ContextFromVertx.Work work = context.work();
+        assertThat(work.start()).isTrue();
+        // The client disconnects while the action is running.
+        context.closed();
+        assertThat(limiter.inFlight()).isEqualTo(1);
+        work.end();
+        assertThat(limiter.inFlight()).isEqualTo(0);
+
+        // A task cancelled before it starts does not hold the permit.
+        context = new ContextFromVertx(vertx, vertx.getOrCreateContext(), accessor,
+                RequestFromVertXTest.create(req));
+        context.admitted(limiter.tryAcquire());
+        work = context.work();
+        context.cleanup();
+        assertThat(limiter.inFlight()).isEqualTo(1);
+        work.abandon();
+        assertThat(work.start()).isFalse();
+        assertThat(limiter.inFlight()).isEqualTo(0);
+    }
+
+    @Test
+    public void testThatTheServerIsNotifiedOnceTheActionHasEnded() throws Exception {
+        HttpRequest req = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+        Server server = mock(Server.class);
+        ContextFromVertx context = new ContextFromVertx(vertx, vertx.getOrCreateContext(), accessor,
+                RequestFromVertXTest.create(req));
+        context.tracked(server);
+        ContextFromVertx.Work work = context.work();
+        assertThat(work.start()).isTrue();
+
+        // The client disconnects while the action is running, the server must still wait for it.
+        context.closed();
+        verify(server, never()).leave();
+        work.end();
+        verify(server).leave();
+
+        // Completing the request again does not notify the server twice.
+        context.cleanup();
+        verify(server).leave();
+    }
+
+    @Test
+    public void testThatTheBodyIsKeptWhileTheActionIsRunning() throws Exception {
+        HttpRequest req = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/");
+        ContextFromVertx context = new ContextFromVertx(vertx, vertx.getOrCreateContext(), accessor,
+                RequestFromVertXTest.create(req));
+        RequestFromVertx request = (RequestFromVertx) context.request();
+        request.appendRawBody(Buffer.buffer("hello"), 5);
+        ContextFromVertx.Work work = context.work();
+        assertThat(work.start()).isTrue();
+
+        // The client disconnects while the action is reading the body.
+        context.closed();
+        assertThat(context.body()).isEqualTo("hello");
+        work.end();
+        assertThat(request.getRawBodyLength()).isEqualTo(0);
+    }
+
     @Test
     public void testPath() throws Exception {
         HttpRequest req = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
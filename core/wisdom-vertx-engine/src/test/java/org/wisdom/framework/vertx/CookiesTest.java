@@ -45,6 +45,7 @@ import org.wisdom.api.http.Request;
 import org.wisdom.api.http.Result;
 import org.wisdom.api.router.Route;
 import org.wisdom.api.router.RouteBuilder;
+import org.wisdom.api.router.RouteMatch;
 import org.wisdom.api.router.Router;
 import org.wisdom.api.utils.CookieDataCodec;
 
@@ -138,13 +139,13 @@ public class CookiesTest extends VertxBaseTest {
         doAnswer(invocationOnMock -> {
             String path = (String) invocationOnMock.getArguments()[1];
             if (path.equals("/")) {
-                return root;
+                return new RouteMatch(root, null);
             }
             if (path.equals("/logged")) {
-                return logged;
+                return new RouteMatch(logged, null);
             }
-            return null;
-        }).when(router).getRouteFor(anyString(), anyString(), any(Request.class));
+            return new RouteMatch(null, null);
+        }).when(router).match(any(HttpMethod.class), anyString(), any(Request.class));
     }
 
     @Test
@@ -0,0 +1,66 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import org.junit.Test;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.framework.vertx.file.DiskFileUpload;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks the engine settings snapshot.
+ */
+public class EngineSettingsTest {
+
+    @Test
+    public void testThatSettingsAreReadOnce() {
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        when(configuration.getIntegerWithDefault("request.body.max.size", 100 * 1024)).thenReturn(2048);
+        when(configuration.getLongWithDefault("http.upload.disk.threshold", DiskFileUpload.MINSIZE)).thenReturn(10L);
+        when(configuration.getLongWithDefault("http.upload.max", -1L)).thenReturn(100L);
+        when(configuration.getLongWithDefault("http.upload.streaming.max", -1L)).thenReturn(1000L);
+        when(configuration.getIntegerWithDefault("request.body.stream.buffer",
+                RequestBodyStream.DEFAULT_HIGH_WATER_MARK)).thenReturn(1024);
+        when(configuration.getBooleanWithDefault("vertx.actions.worker", true)).thenReturn(true);
+        when(configuration.getBooleanWithDefault("vertx.compression", true)).thenReturn(true);
+        when(configuration.getBytes(ApplicationConfiguration.ENCODING_MIN_SIZE,
+                ApplicationConfiguration.DEFAULT_ENCODING_MIN_SIZE)).thenReturn(800L);
+        when(configuration.getBytes(ApplicationConfiguration.ENCODING_MAX_SIZE,
+                ApplicationConfiguration.DEFAULT_ENCODING_MAX_SIZE)).thenReturn(1500L);
+
+        EngineSettings settings = new EngineSettings(configuration);
+        for (int i = 0; i < 10; i++) {
+            assertThat(settings.maxBodySize()).isEqualTo(2048);
+            assertThat(settings.uploadDiskThreshold()).isEqualTo(10L);
+            assertThat(settings.uploadMaxSize()).isEqualTo(100L);
+            assertThat(settings.uploadStreamingMaxSize()).isEqualTo(1000L);
+            assertThat(settings.streamedBodyBufferSize()).isEqualTo(1024);
+            assertThat(settings.actionsOnWorker()).isTrue();
+            assertThat(settings.compression()).isTrue();
+            assertThat(settings.encodingMinBound()).isEqualTo(800L);
+            assertThat(settings.encodingMaxBound()).isEqualTo(1500L);
+        }
+
+        verify(configuration, times(1)).getIntegerWithDefault("request.body.max.size", 100 * 1024);
+        verify(configuration, times(1)).getBooleanWithDefault("vertx.compression", true);
+    }
+}
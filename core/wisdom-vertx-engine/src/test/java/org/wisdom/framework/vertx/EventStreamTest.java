@@ -0,0 +1,211 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServerResponse;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Test;
+import org.wisdom.api.Controller;
+import org.wisdom.api.DefaultController;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.exceptions.ExceptionMapper;
+import org.wisdom.api.http.HeaderNames;
+import org.wisdom.api.http.HttpMethod;
+import org.wisdom.api.http.Request;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.http.sse.EventStream;
+import org.wisdom.api.router.Route;
+import org.wisdom.api.router.RouteBuilder;
+import org.wisdom.api.router.RouteMatch;
+import org.wisdom.api.router.Router;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the Server-Sent Events streams.
+ */
+public class EventStreamTest extends VertxBaseTest {
+
+    private WisdomVertxServer server;
+
+    @After
+    public void tearDown() {
+        if (server != null) {
+            server.stop();
+            server = null;
+        }
+    }
+
+    @Test
+    public void testEventFormat() {
+        assertThat(VertxEventStream.format(null, null, "hello")).isEqualTo("data: hello\n\n");
+        assertThat(VertxEventStream.format("1", "tick", "a\nb\r\nc")).isEqualTo(
+                "id: 1\nevent: tick\ndata: a\ndata: b\ndata: c\n\n");
+        assertThat(VertxEventStream.format(null, "ping", null)).isEqualTo("event: ping\n\n");
+    }
+
+    @Test
+    public void testThatIdentifiersAndNamesCannotInjectFields() {
+        VertxEventStream stream = new VertxEventStream(mock(Vertx.class), mock(io.vertx.core.Context.class),
+                mock(HttpServerResponse.class), mock(Server.class), 10);
+        String[][] invalid = {
+                {"1\nevent: other", null},
+                {"1\r", null},
+                {"1\0", null},
+                {null, "tick\ndata: injected"},
+                {null, "tick\r"}
+        };
+        for (String[] values : invalid) {
+            try {
+                stream.send(values[0], values[1], "hello");
+                fail("Event with id " + values[0] + " and name " + values[1] + " accepted");
+            } catch (IllegalArgumentException e) {
+                // Expected.
+            }
+        }
+        assertThat(stream.send("1", "tick", "hello")).isTrue();
+    }
+
+    @Test
+    public void testThatEventsAreSent() throws InterruptedException, IOException {
+        start(new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() {
+                return eventStream(stream -> {
+                    stream.send("hello");
+                    stream.send("1", "tick", "a\nb");
+                    stream.close();
+                });
+            }
+        });
+
+        URL url = new URL("http://localhost:" + server.httpPort() + "/");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        assertThat(connection.getHeaderField(HeaderNames.CONTENT_TYPE)).startsWith("text/event-stream");
+        assertThat(connection.getHeaderField(HeaderNames.CACHE_CONTROL)).isEqualTo("no-cache");
+        assertThat(connection.getHeaderField(HeaderNames.CONTENT_ENCODING)).isNull();
+        assertThat(IOUtils.toString(connection.getInputStream(), StandardCharsets.UTF_8)).isEqualTo(
+                ":\n\n" + "data: hello\n\n" + "id: 1\nevent: tick\ndata: a\ndata: b\n\n");
+    }
+
+    @Test
+    public void testHeartbeats() throws InterruptedException, IOException {
+        start(new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() {
+                return eventStream(stream -> {
+                    // Nothing to send.
+                }).withHeartbeat(50, TimeUnit.MILLISECONDS);
+            }
+        });
+
+        URL url = new URL("http://localhost:" + server.httpPort() + "/");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        byte[] content = new byte[9];
+        // The first comment sends the headers, the others are heartbeats.
+        new DataInputStream(connection.getInputStream()).readFully(content);
+        assertThat(new String(content, StandardCharsets.UTF_8)).isEqualTo(":\n\n:\n\n:\n\n");
+        connection.disconnect();
+    }
+
+    @Test
+    public void testThatStreamsAreClosedWhenTheClientDisconnects() throws InterruptedException, IOException {
+        AtomicReference<EventStream> opened = new AtomicReference<>();
+        CountDownLatch closed = new CountDownLatch(1);
+        start(new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() {
+                return eventStream(stream -> {
+                    stream.onClose(closed::countDown);
+                    opened.set(stream);
+                    stream.send("hello");
+                });
+            }
+        });
+
+        URL url = new URL("http://localhost:" + server.httpPort() + "/");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        byte[] content = new byte[16];
+        new DataInputStream(connection.getInputStream()).readFully(content);
+        assertThat(new String(content, StandardCharsets.UTF_8)).isEqualTo(":\n\ndata: hello\n\n");
+        assertThat(opened.get().isWritable()).isTrue();
+        assertThat(server.getInFlightRequests()).isEqualTo(0);
+
+        connection.disconnect();
+        assertThat(closed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(opened.get().isClosed()).isTrue();
+        assertThat(opened.get().isWritable()).isFalse();
+        assertThat(opened.get().send("too late")).isFalse();
+    }
+
+    private void start(Controller controller) throws InterruptedException {
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        when(configuration.getIntegerWithDefault(eq("vertx.http.port"), anyInt())).thenReturn(0);
+        when(configuration.getIntegerWithDefault(eq("vertx.https.port"), anyInt())).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.acceptBacklog", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.receiveBufferSize", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.sendBufferSize", -1)).thenReturn(-1);
+        when(configuration.getStringArray("wisdom.websocket.subprotocols")).thenReturn(new String[0]);
+        when(configuration.getStringArray("vertx.websocket-subprotocols")).thenReturn(new String[0]);
+
+        Router router = mock(Router.class);
+        Route route = new RouteBuilder().route(HttpMethod.GET)
+                .on("/")
+                .to(controller, "index");
+        when(router.match(any(HttpMethod.class), anyString(), any(Request.class)))
+                .thenReturn(new RouteMatch(route, null));
+
+        server = new WisdomVertxServer();
+        server.configuration = configuration;
+        server.accessor = new ServiceAccessor(
+                null,
+                configuration,
+                router,
+                getMockContentEngine(),
+                executor,
+                null,
+                Collections.<ExceptionMapper>emptyList()
+        );
+        server.vertx = vertx;
+        server.start();
+
+        VertxHttpServerTest.waitForStart(server);
+    }
+}
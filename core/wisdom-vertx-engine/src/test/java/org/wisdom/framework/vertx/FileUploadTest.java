@@ -19,6 +19,17 @@
  */
 package org.wisdom.framework.vertx;
 
+import com.google.common.io.BaseEncoding;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.FileSystem;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.http.HttpServerFileUpload;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.http.HttpEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
@@ -33,6 +44,7 @@ import org.apache.http.util.EntityUtils;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.wisdom.api.Controller;
 import org.wisdom.api.DefaultController;
 import org.wisdom.api.configuration.ApplicationConfiguration;
@@ -41,19 +53,29 @@ import org.wisdom.api.exceptions.ExceptionMapper;
 import org.wisdom.api.http.*;
 import org.wisdom.api.router.Route;
 import org.wisdom.api.router.RouteBuilder;
+import org.wisdom.api.router.RouteMatch;
 import org.wisdom.api.router.Router;
 import org.wisdom.framework.vertx.file.DiskFileUpload;
+import org.wisdom.framework.vertx.file.StreamingFileUpload;
 
 import java.io.File;
 import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -119,7 +141,8 @@ public class FileUploadTest extends VertxBaseTest {
         Route route = new RouteBuilder().route(HttpMethod.POST)
                 .on("/")
                 .to(controller, "index");
-        when(router.getRouteFor(anyString(), anyString(), any(Request.class))).thenReturn(route);
+        when(router.match(any(HttpMethod.class), anyString(), any(Request.class)))
+                .thenReturn(new RouteMatch(route, null));
 
         ContentEngine contentEngine = getMockContentEngine();
 
@@ -208,7 +231,8 @@ public class FileUploadTest extends VertxBaseTest {
         Route route = new RouteBuilder().route(HttpMethod.POST)
                 .on("/")
                 .to(controller, "index");
-        when(router.getRouteFor(anyString(), anyString(), any(Request.class))).thenReturn(route);
+        when(router.match(any(HttpMethod.class), anyString(), any(Request.class)))
+                .thenReturn(new RouteMatch(route, null));
 
         ContentEngine contentEngine = getMockContentEngine();
 
@@ -295,7 +319,8 @@ public class FileUploadTest extends VertxBaseTest {
         Route route = new RouteBuilder().route(HttpMethod.POST)
                 .on("/")
                 .to(controller, "index");
-        when(router.getRouteFor(anyString(), anyString(), any(Request.class))).thenReturn(route);
+        when(router.match(any(HttpMethod.class), anyString(), any(Request.class)))
+                .thenReturn(new RouteMatch(route, null));
 
         ContentEngine contentEngine = getMockContentEngine();
 
@@ -360,7 +385,8 @@ public class FileUploadTest extends VertxBaseTest {
         Route route = new RouteBuilder().route(HttpMethod.POST)
                 .on("/")
                 .to(controller, "index");
-        when(router.getRouteFor(anyString(), anyString(), any(Request.class))).thenReturn(route);
+        when(router.match(any(HttpMethod.class), anyString(), any(Request.class)))
+                .thenReturn(new RouteMatch(route, null));
 
         ContentEngine contentEngine = getMockContentEngine();
 
@@ -400,6 +426,221 @@ public class FileUploadTest extends VertxBaseTest {
 
     }
 
+    @Test
+    public void testThatStreamedUploadsAreBoundedAsAWhole() throws Exception {
+        // Prepare the configuration
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        when(configuration.getIntegerWithDefault(eq("vertx.http.port"), anyInt())).thenReturn(0);
+        when(configuration.getIntegerWithDefault(eq("vertx.https.port"), anyInt())).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.acceptBacklog", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.receiveBufferSize", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.sendBufferSize", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("request.body.max.size", 100 * 1024)).thenReturn(100 * 1024);
+        when(configuration.getLongWithDefault("http.upload.max", -1l)).thenReturn(-1l);
+        when(configuration.getBooleanWithDefault("http.upload.streaming", false)).thenReturn(true);
+        when(configuration.getLongWithDefault(eq("http.upload.streaming.max"), anyLong())).thenReturn(1024l);
+        when(configuration.getStringArray("wisdom.websocket.subprotocols")).thenReturn(new String[0]);
+        when(configuration.getStringArray("vertx.websocket-subprotocols")).thenReturn(new String[0]);
+
+        // Prepare the router with a controller
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() {
+                return ok();
+            }
+        };
+        Router router = mock(Router.class);
+        Route route = new RouteBuilder().route(HttpMethod.POST)
+                .on("/")
+                .to(controller, "index");
+        when(router.match(any(HttpMethod.class), anyString(), any(Request.class)))
+                .thenReturn(new RouteMatch(route, null));
+
+        // Configure the server.
+        server = new WisdomVertxServer();
+        server.accessor = new ServiceAccessor(
+                null,
+                configuration,
+                router,
+                getMockContentEngine(),
+                executor,
+                null,
+                Collections.<ExceptionMapper>emptyList()
+        );
+        server.configuration = configuration;
+        server.vertx = vertx;
+        server.start();
+
+        VertxHttpServerTest.waitForStart(server);
+
+        // No file, but form attributes larger than the limit.
+        char[] comment = new char[4096];
+        Arrays.fill(comment, 'a');
+        CloseableHttpClient httpclient = HttpClients.createDefault();
+        HttpPost post = new HttpPost("http://localhost:" + server.httpPort() + "/");
+        post.setEntity(MultipartEntityBuilder.create()
+                .addPart("comment", new StringBody(new String(comment), ContentType.TEXT_PLAIN))
+                .build());
+
+        CloseableHttpResponse response = httpclient.execute(post);
+        assertThat(response.getStatusLine().getStatusCode()).isEqualTo(413);
+        IOUtils.closeQuietly(response);
+        IOUtils.closeQuietly(httpclient);
+    }
+
+    @Test
+    public void testThatFilesCanBeStreamedToDisk() throws Exception {
+        // Prepare the configuration
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        when(configuration.getIntegerWithDefault(eq("vertx.http.port"), anyInt())).thenReturn(0);
+        when(configuration.getIntegerWithDefault(eq("vertx.https.port"), anyInt())).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.acceptBacklog", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.receiveBufferSize", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.sendBufferSize", -1)).thenReturn(-1);
+        // The body is larger than the max body size, it must not be kept in memory.
+        when(configuration.getIntegerWithDefault("request.body.max.size", 100 * 1024)).thenReturn(100 * 1024);
+        when(configuration.getLongWithDefault("http.upload.max", -1l)).thenReturn(-1l);
+        when(configuration.getBooleanWithDefault("http.upload.streaming", false)).thenReturn(true);
+        when(configuration.getStringArray("wisdom.websocket.subprotocols")).thenReturn(new String[0]);
+        when(configuration.getStringArray("vertx.websocket-subprotocols")).thenReturn(new String[0]);
+
+        File destination = new File("target/uploads/moved.dat");
+        destination.getParentFile().mkdirs();
+        destination.delete();
+
+        // Prepare the router with a controller
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() throws IOException {
+                FileItem item = context().file("upload");
+                if (!(item instanceof DiskFileItem) || item.isInMemory()) {
+                    return badRequest("Disk file expected");
+                }
+                if (!context().form().get("comment").get(0).equals("my description")) {
+                    return badRequest("broken form");
+                }
+                DiskFileItem file = (DiskFileItem) item;
+                File temporary = file.toFile();
+                file.moveTo(destination);
+                if (temporary.exists() || destination.length() != item.size()) {
+                    return badRequest("broken move");
+                }
+                return ok(file.hash() + ":" + item.size());
+            }
+        };
+        Router router = mock(Router.class);
+        Route route = new RouteBuilder().route(HttpMethod.POST)
+                .on("/")
+                .to(controller, "index");
+        when(router.match(any(HttpMethod.class), anyString(), any(Request.class)))
+                .thenReturn(new RouteMatch(route, null));
+
+        // Configure the server.
+        server = new WisdomVertxServer();
+        server.accessor = new ServiceAccessor(
+                null,
+                configuration,
+                router,
+                getMockContentEngine(),
+                executor,
+                null,
+                Collections.<ExceptionMapper>emptyList()
+        );
+        server.configuration = configuration;
+        server.vertx = vertx;
+        server.start();
+
+        VertxHttpServerTest.waitForStart(server);
+
+        int port = server.httpPort();
+        byte[] data = new byte[5 * 1024 * 1024];
+        RANDOM.nextBytes(data);
+        CloseableHttpClient httpclient = HttpClients.createDefault();
+        HttpPost post = new HttpPost("http://localhost:" + port + "/");
+        post.setEntity(MultipartEntityBuilder.create()
+                .addPart("upload", new ByteArrayBody(data, "my-file.dat"))
+                .addPart("comment", new StringBody("my description", ContentType.TEXT_PLAIN))
+                .build());
+
+        CloseableHttpResponse response = httpclient.execute(post);
+        String content = EntityUtils.toString(response.getEntity());
+        assertThat(response.getStatusLine().getStatusCode()).isEqualTo(200);
+        String hash = BaseEncoding.base16().lowerCase().encode(MessageDigest.getInstance("SHA-256").digest(data));
+        assertThat(content).isEqualTo(hash + ":" + data.length);
+
+        // The moved file is not deleted once the request is completed.
+        assertThat(destination).exists();
+        assertThat(FileUtils.readFileToByteArray(destination)).isEqualTo(data);
+        IOUtils.closeQuietly(response);
+        IOUtils.closeQuietly(httpclient);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testThatAStreamedUploadFailsIfTheFileCannotBeOpened() {
+        Vertx vertx = mock(Vertx.class);
+        FileSystem fs = mock(FileSystem.class);
+        when(vertx.fileSystem()).thenReturn(fs);
+        doAnswer(invocation -> {
+            ((Handler<AsyncResult<AsyncFile>>) invocation.getArguments()[2])
+                    .handle(Future.failedFuture(new IOException("Cannot open")));
+            return fs;
+        }).when(fs).open(anyString(), any(OpenOptions.class), any(Handler.class));
+        HttpServerFileUpload upload = mock(HttpServerFileUpload.class);
+        when(upload.filename()).thenReturn("my-file.dat");
+        List<Result> errors = new ArrayList<>();
+
+        StreamingFileUpload file = new StreamingFileUpload(vertx, upload, -1, errors::add);
+
+        // The request is answered with an error, and the rest of the upload is read and discarded.
+        assertThat(errors).hasSize(1);
+        assertThat(errors.get(0).getStatusCode()).isEqualTo(Status.INTERNAL_SERVER_ERROR);
+        verify(upload, atLeastOnce()).resume();
+        ArgumentCaptor<Handler> end = ArgumentCaptor.forClass(Handler.class);
+        verify(upload).endHandler(end.capture());
+        end.getValue().handle(null);
+        boolean[] completed = {false};
+        file.whenCompleted(v -> completed[0] = true);
+        assertThat(completed[0]).isTrue();
+        assertThat(file.hash()).isNull();
+        file.cleanup();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testThatAStreamedUploadIsResumedIfTheFileCannotBeWritten() {
+        Vertx vertx = mock(Vertx.class);
+        FileSystem fs = mock(FileSystem.class);
+        AsyncFile async = mock(AsyncFile.class);
+        when(vertx.fileSystem()).thenReturn(fs);
+        when(async.writeQueueFull()).thenReturn(true);
+        doAnswer(invocation -> {
+            ((Handler<AsyncResult<AsyncFile>>) invocation.getArguments()[2]).handle(Future.succeededFuture(async));
+            return fs;
+        }).when(fs).open(anyString(), any(OpenOptions.class), any(Handler.class));
+        HttpServerFileUpload upload = mock(HttpServerFileUpload.class);
+        when(upload.filename()).thenReturn("my-file.dat");
+        List<Result> errors = new ArrayList<>();
+
+        StreamingFileUpload file = new StreamingFileUpload(vertx, upload, -1, errors::add);
+        ArgumentCaptor<Handler> data = ArgumentCaptor.forClass(Handler.class);
+        verify(upload).handler(data.capture());
+        ArgumentCaptor<Handler> failure = ArgumentCaptor.forClass(Handler.class);
+        verify(async).exceptionHandler(failure.capture());
+
+        // The upload is paused until the write queue is drained...
+        data.getValue().handle(Buffer.buffer("hello"));
+        verify(upload).pause();
+        // ... which never happens as the write fails.
+        failure.getValue().handle(new IOException("Disk full"));
+        failure.getValue().handle(new IOException("Disk full"));
+        assertThat(errors).hasSize(1);
+        assertThat(errors.get(0).getStatusCode()).isEqualTo(Status.INTERNAL_SERVER_ERROR);
+        // Resumed after the opening, and after each failure.
+        verify(upload, times(3)).resume();
+        file.cleanup();
+    }
+
     private class Client implements Runnable {
         private final CountDownLatch startSignal;
         private final CountDownLatch doneSignal;
@@ -37,6 +37,7 @@ import org.wisdom.api.http.MimeTypes;
 import org.wisdom.api.http.Result;
 import org.wisdom.api.router.Route;
 import org.wisdom.api.router.RouteBuilder;
+import org.wisdom.api.router.RouteMatch;
 import org.wisdom.api.router.Router;
 
 import java.io.IOException;
@@ -90,7 +91,8 @@ public class FormTest extends VertxBaseTest {
         Route route = new RouteBuilder().route(HttpMethod.POST)
                 .on("/")
                 .to(controller, "submit");
-        when(router.getRouteFor(anyString(), anyString(), any(org.wisdom.api.http.Request.class))).thenReturn(route);
+        when(router.match(any(HttpMethod.class), anyString(), any(org.wisdom.api.http.Request.class)))
+                .thenReturn(new RouteMatch(route, null));
 
         server.start();
         waitForStart(server);
@@ -131,7 +133,8 @@ public class FormTest extends VertxBaseTest {
         Route route = new RouteBuilder().route(HttpMethod.POST)
                 .on("/")
                 .to(controller, "submit");
-        when(router.getRouteFor(anyString(), anyString(), any(org.wisdom.api.http.Request.class))).thenReturn(route);
+        when(router.match(any(HttpMethod.class), anyString(), any(org.wisdom.api.http.Request.class)))
+                .thenReturn(new RouteMatch(route, null));
 
         server.start();
         waitForStart(server);
@@ -0,0 +1,96 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the matching of the allow and deny lists.
+ */
+public class PathMatcherTest {
+
+    private static final List<String> EMPTY = Collections.emptyList();
+
+    @Test
+    public void testEmptyLists() {
+        PathMatcher matcher = new PathMatcher(EMPTY, EMPTY);
+        assertThat(matcher.accept("/")).isTrue();
+        assertThat(matcher.accept("/foo")).isTrue();
+    }
+
+    @Test
+    public void testAllowList() {
+        PathMatcher matcher = new PathMatcher(ImmutableList.of("/admin/*", " /health", "*.css"), EMPTY);
+        assertThat(matcher.accept("/admin/")).isTrue();
+        assertThat(matcher.accept("/admin/users/1")).isTrue();
+        assertThat(matcher.accept("/health")).isTrue();
+        assertThat(matcher.accept("/assets/style.css")).isTrue();
+
+        assertThat(matcher.accept("/admin")).isFalse();
+        assertThat(matcher.accept("/healthy")).isFalse();
+        assertThat(matcher.accept("/assets/stylecss")).isFalse();
+        assertThat(matcher.accept("/")).isFalse();
+    }
+
+    @Test
+    public void testDenyList() {
+        PathMatcher matcher = new PathMatcher(EMPTY, ImmutableList.of("/admin*", "/monitor/*/logs"));
+        assertThat(matcher.accept("/admin")).isFalse();
+        assertThat(matcher.accept("/admin/users")).isFalse();
+        assertThat(matcher.accept("/monitor/a/b/logs")).isFalse();
+
+        assertThat(matcher.accept("/monitor/logs")).isTrue();
+        assertThat(matcher.accept("/monitor/a/logs/1")).isTrue();
+        assertThat(matcher.accept("/")).isTrue();
+    }
+
+    @Test
+    public void testThatDenyWins() {
+        PathMatcher matcher = new PathMatcher(ImmutableList.of("/api/*"), ImmutableList.of("/api/internal/*"));
+        assertThat(matcher.accept("/api/users")).isTrue();
+        assertThat(matcher.accept("/api/internal/x")).isFalse();
+        // Not in the allow list, but the deny list is not empty.
+        assertThat(matcher.accept("/other")).isTrue();
+    }
+
+    @Test
+    public void testSeveralWildcards() {
+        PathMatcher matcher = new PathMatcher(ImmutableList.of("/a*b*c", "/**/x"), EMPTY);
+        assertThat(matcher.accept("/abc")).isTrue();
+        assertThat(matcher.accept("/a-b-b-c")).isTrue();
+        assertThat(matcher.accept("/acb")).isFalse();
+        assertThat(matcher.accept("//x")).isTrue();
+        assertThat(matcher.accept("/y/z/x")).isTrue();
+    }
+
+    @Test
+    public void testRegexEntries() {
+        PathMatcher matcher = new PathMatcher(ImmutableList.of("/(foo|bar)/*"), EMPTY);
+        assertThat(matcher.accept("/foo/1")).isTrue();
+        assertThat(matcher.accept("/bar/1")).isTrue();
+        assertThat(matcher.accept("/baz/1")).isFalse();
+    }
+}
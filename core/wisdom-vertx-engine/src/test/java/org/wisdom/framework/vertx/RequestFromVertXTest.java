@@ -19,7 +19,10 @@
  */
 package org.wisdom.framework.vertx;
 
+import com.google.common.base.Charsets;
 import com.google.common.net.MediaType;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
@@ -27,6 +30,7 @@ import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpVersion;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.http.HttpServerResponse;
 import io.vertx.core.http.impl.HttpServerRequestImpl;
@@ -214,6 +218,67 @@ public class RequestFromVertXTest {
         );
     }
 
+    @Test
+    public void testThatParsedValuesAreComputedOnce() throws Exception {
+        HttpRequest req = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/foo?a=b");
+        req.headers().set(HeaderNames.ACCEPT, "text/html,application/xml;q=0.9");
+        RequestFromVertx request = new RequestFromVertx(create(req));
+
+        assertThat(request.path()).isEqualTo("/foo");
+        assertThat(request.path()).isSameAs(request.path());
+        assertThat(request.mediaTypes()).isSameAs(request.mediaTypes());
+        assertThat(request.parameters()).isSameAs(request.parameters());
+        assertThat(request.parameters().get("a")).containsExactly("b");
+
+        // Changing the header recomputes the media types.
+        req.headers().set(HeaderNames.ACCEPT, "application/json");
+        assertThat(request.mediaType().toString()).isEqualTo("application/json");
+    }
+
+    @Test
+    public void testThatTheRawBodyIsAccumulatedAndReleased() throws Exception {
+        HttpRequest req = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/");
+        RequestFromVertx request = new RequestFromVertx(create(req));
+        assertThat(request.getRawBody()).isEmpty();
+        assertThat(request.getRawBodyAsString()).isEmpty();
+
+        request.appendRawBody(Buffer.buffer("hello "), 11);
+        request.appendRawBody(Buffer.buffer("world"), 11);
+        assertThat(request.getRawBodyLength()).isEqualTo(11);
+        assertThat(request.getRawBodyAsString()).isEqualTo("hello world");
+        assertThat(request.getRawBody()).isEqualTo("hello world".getBytes("UTF-8"));
+
+        // Releasing the body twice is harmless.
+        request.releaseRawBody();
+        request.releaseRawBody();
+        assertThat(request.getRawBodyLength()).isEqualTo(0);
+        assertThat(request.getRawBody()).isEmpty();
+    }
+
+    @Test
+    public void testThatARawBodySetByTheCallerIsNotReleased() throws Exception {
+        HttpRequest req = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/");
+        RequestFromVertx request = new RequestFromVertx(create(req));
+        ByteBuf given = Unpooled.copiedBuffer("hello", Charsets.UTF_8);
+
+        // Replacing a pooled body by the given one.
+        request.appendRawBody(Buffer.buffer("ignored"), 7);
+        request.setRawBody(Buffer.buffer(given));
+        assertThat(request.getRawBodyAsString()).isEqualTo("hello");
+
+        // The given buffer is copied, not written, when more chunks are received.
+        request.appendRawBody(Buffer.buffer(" world"), -1);
+        assertThat(request.getRawBodyAsString()).isEqualTo("hello world");
+        assertThat(given.readableBytes()).isEqualTo(5);
+
+        request.setRawBody(Buffer.buffer(given));
+        request.setRawBody(null);
+        request.releaseRawBody();
+        assertThat(request.getRawBody()).isEmpty();
+        assertThat(given.refCnt()).isEqualTo(1);
+        given.release();
+    }
+
     @Test
     public void testAccepts() throws Exception {
         HttpRequest req = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
@@ -41,6 +41,7 @@ import org.wisdom.api.http.Request;
 import org.wisdom.api.http.Result;
 import org.wisdom.api.router.Route;
 import org.wisdom.api.router.RouteBuilder;
+import org.wisdom.api.router.RouteMatch;
 import org.wisdom.api.router.Router;
 
 import java.io.IOException;
@@ -208,10 +209,10 @@ public class ResponseEncodingTest extends VertxBaseTest {
         doAnswer(invocationOnMock -> {
             String path = (String) invocationOnMock.getArguments()[1];
             if (path.equals("/")) {
-                return root;
+                return new RouteMatch(root, null);
             }
-            return null;
-        }).when(router).getRouteFor(anyString(), anyString(), any(Request.class));
+            return new RouteMatch(null, null);
+        }).when(router).match(any(HttpMethod.class), anyString(), any(Request.class));
     }
 
     private Router prepareServer() {
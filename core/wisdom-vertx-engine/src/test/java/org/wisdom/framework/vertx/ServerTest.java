@@ -46,6 +46,7 @@ import org.wisdom.api.http.Result;
 import org.wisdom.api.http.Status;
 import org.wisdom.api.router.Route;
 import org.wisdom.api.router.RouteBuilder;
+import org.wisdom.api.router.RouteMatch;
 import org.wisdom.api.router.Router;
 import org.wisdom.test.parents.FakeConfiguration;
 
@@ -196,7 +197,8 @@ public class ServerTest extends VertxBaseTest {
         Route route = new RouteBuilder().route(HttpMethod.GET)
                 .on("/")
                 .to(controller, "index");
-        when(router.getRouteFor(anyString(), anyString(), any(Request.class))).thenReturn(route);
+        when(router.match(any(HttpMethod.class), anyString(), any(Request.class)))
+                .thenReturn(new RouteMatch(route, null));
 
         wisdom.start();
         waitForStart(wisdom);
@@ -277,19 +279,19 @@ public class ServerTest extends VertxBaseTest {
         final Route route2 = new RouteBuilder().route(HttpMethod.GET)
                 .on("/bar")
                 .to(controller, "index");
-        doAnswer(new Answer<Route>() {
+        doAnswer(new Answer<RouteMatch>() {
             @Override
-            public Route answer(InvocationOnMock mock) throws Throwable {
+            public RouteMatch answer(InvocationOnMock mock) throws Throwable {
                 String url = (String) mock.getArguments()[1];
                 if (url.equals("/foo")) {
-                    return route1;
+                    return new RouteMatch(route1, null);
                 }
                 if (url.equals("/bar")) {
-                    return route2;
+                    return new RouteMatch(route2, null);
                 }
-                return null;
+                return new RouteMatch(null, null);
             }
-        }).when(router).getRouteFor(anyString(), anyString(), any(Request.class));
+        }).when(router).match(any(HttpMethod.class), anyString(), any(Request.class));
 
         wisdom.start();
         waitForStart(wisdom);
@@ -358,19 +360,19 @@ public class ServerTest extends VertxBaseTest {
         final Route route2 = new RouteBuilder().route(HttpMethod.GET)
                 .on("/bar")
                 .to(controller, "index");
-        doAnswer(new Answer<Route>() {
+        doAnswer(new Answer<RouteMatch>() {
             @Override
-            public Route answer(InvocationOnMock mock) throws Throwable {
+            public RouteMatch answer(InvocationOnMock mock) throws Throwable {
                 String url = (String) mock.getArguments()[1];
                 if (url.equals("/foo")) {
-                    return route1;
+                    return new RouteMatch(route1, null);
                 }
                 if (url.equals("/bar")) {
-                    return route2;
+                    return new RouteMatch(route2, null);
                 }
-                return null;
+                return new RouteMatch(null, null);
             }
-        }).when(router).getRouteFor(anyString(), anyString(), any(Request.class));
+        }).when(router).match(any(HttpMethod.class), anyString(), any(Request.class));
 
         wisdom.start();
         waitForStart(wisdom);
@@ -438,19 +440,19 @@ public class ServerTest extends VertxBaseTest {
         final Route route2 = new RouteBuilder().route(HttpMethod.GET)
                 .on("/bar")
                 .to(controller, "bar");
-        doAnswer(new Answer<Route>() {
+        doAnswer(new Answer<RouteMatch>() {
             @Override
-            public Route answer(InvocationOnMock mock) throws Throwable {
+            public RouteMatch answer(InvocationOnMock mock) throws Throwable {
                 String url = (String) mock.getArguments()[1];
                 if (url.equals("/foo")) {
-                    return route1;
+                    return new RouteMatch(route1, null);
                 }
                 if (url.equals("/bar")) {
-                    return route2;
+                    return new RouteMatch(route2, null);
                 }
-                return null;
+                return new RouteMatch(null, null);
             }
-        }).when(router).getRouteFor(anyString(), anyString(), any(Request.class));
+        }).when(router).match(any(HttpMethod.class), anyString(), any(Request.class));
 
         wisdom.start();
         waitForStart(wisdom);
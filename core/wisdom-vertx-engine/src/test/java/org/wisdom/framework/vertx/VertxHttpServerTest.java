@@ -19,21 +19,33 @@
  */
 package org.wisdom.framework.vertx;
 
+import com.google.common.collect.ImmutableList;
 import io.vertx.core.http.HttpClientOptions;
 import org.apache.commons.io.IOUtils;
 import org.junit.After;
 import org.junit.Test;
 import org.wisdom.api.Controller;
+import org.wisdom.api.annotations.NonBlocking;
+import org.wisdom.api.annotations.StreamedBody;
+import org.wisdom.api.bodies.RenderableString;
+import org.wisdom.api.concurrent.ExecutionContextService;
+import org.wisdom.api.concurrent.ManagedExecutorService;
 import org.wisdom.api.DefaultController;
 import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.api.exceptions.ExceptionMapper;
 import org.wisdom.api.http.*;
 import org.wisdom.api.router.Route;
 import org.wisdom.api.router.RouteBuilder;
+import org.wisdom.api.router.RouteMatch;
 import org.wisdom.api.router.Router;
+import org.wisdom.executors.ManagedExecutorServiceImpl;
+import org.wisdom.executors.context.HttpExecutionContextService;
 import org.wisdom.framework.vertx.ssl.SSLServerContext;
+import org.wisdom.test.parents.FakeConfiguration;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.Collections;
@@ -95,7 +107,8 @@ public class VertxHttpServerTest extends VertxBaseTest {
         Route route = new RouteBuilder().route(HttpMethod.GET)
                 .on("/")
                 .to(controller, "index");
-        when(router.getRouteFor(anyString(), anyString(), any(Request.class))).thenReturn(route);
+        when(router.match(any(HttpMethod.class), anyString(), any(Request.class)))
+                .thenReturn(new RouteMatch(route, null));
 
         server.start();
         waitForStart(server);
@@ -123,7 +136,8 @@ public class VertxHttpServerTest extends VertxBaseTest {
         Route route = new RouteBuilder().route(HttpMethod.GET)
                 .on("/")
                 .to(controller, "index");
-        when(router.getRouteFor(anyString(), anyString(), any(Request.class))).thenReturn(route);
+        when(router.match(any(HttpMethod.class), anyString(), any(Request.class)))
+                .thenReturn(new RouteMatch(route, null));
 
         server.start();
 
@@ -134,6 +148,335 @@ public class VertxHttpServerTest extends VertxBaseTest {
         assertThat(connection.getResponseCode()).isEqualTo(500);
     }
 
+    @Test
+    public void testOkWithSeveralVerticleInstances() throws InterruptedException, IOException {
+        Router router = prepareServer();
+        when(server.configuration.getIntegerWithDefault(eq("vertx.http.instances"), anyInt())).thenReturn(4);
+
+        // Prepare the router with a controller
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() {
+                return ok("Alright");
+            }
+        };
+        Route route = new RouteBuilder().route(HttpMethod.GET)
+                .on("/")
+                .to(controller, "index");
+        when(router.match(any(HttpMethod.class), anyString(), any(Request.class)))
+                .thenReturn(new RouteMatch(route, null));
+
+        server.start();
+        waitForStart(server);
+
+        int port = server.httpPort();
+        for (int i = 0; i < 10; i++) {
+            // Open a new connection every time, so they are dispatched among the instances.
+            URL url = new URL("http://localhost:" + port + "/");
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            assertThat(connection.getResponseCode()).isEqualTo(200);
+            assertThat(IOUtils.toString(connection.getInputStream())).isEqualTo("Alright");
+            connection.disconnect();
+        }
+    }
+
+    @Test
+    public void testThatActionsAreInvokedOnWorkerThreadsUnlessNonBlocking() throws InterruptedException, IOException {
+        Router router = prepareServer();
+        when(server.configuration.getBooleanWithDefault(eq("vertx.actions.worker"), anyBoolean())).thenReturn(true);
+        // Actions run on their own executor, not on the system one.
+        ManagedExecutorService actions = new ManagedExecutorServiceImpl("actions",
+                new FakeConfiguration(Collections.<String, Object>emptyMap()),
+                ImmutableList.<ExecutionContextService>of(new HttpExecutionContextService()));
+        server.accessor = new ServiceAccessor(
+                null,
+                server.configuration,
+                router,
+                getMockContentEngine(),
+                executor,
+                actions,
+                null,
+                Collections.<ExceptionMapper>emptyList()
+        );
+
+        // Prepare the router with a controller
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result blocking() {
+                return ok(Thread.currentThread().getName());
+            }
+
+            @SuppressWarnings("unused")
+            @NonBlocking
+            public Result nonBlocking() {
+                return ok(Thread.currentThread().getName());
+            }
+        };
+        Route blocking = new RouteBuilder().route(HttpMethod.GET)
+                .on("/blocking")
+                .to(controller, "blocking");
+        Route nonBlocking = new RouteBuilder().route(HttpMethod.GET)
+                .on("/non-blocking")
+                .to(controller, "nonBlocking");
+        when(router.match(any(HttpMethod.class), eq("/blocking"), any(Request.class)))
+                .thenReturn(new RouteMatch(blocking, null));
+        when(router.match(any(HttpMethod.class), eq("/non-blocking"), any(Request.class)))
+                .thenReturn(new RouteMatch(nonBlocking, null));
+
+        server.start();
+        waitForStart(server);
+
+        int port = server.httpPort();
+        URL url = new URL("http://localhost:" + port + "/blocking");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        assertThat(IOUtils.toString(connection.getInputStream())).startsWith("actions-");
+
+        url = new URL("http://localhost:" + port + "/non-blocking");
+        connection = (HttpURLConnection) url.openConnection();
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        assertThat(IOUtils.toString(connection.getInputStream())).contains("eventloop");
+        actions.shutdownNow();
+    }
+
+    @Test
+    public void testThatSlowAsyncResultsAreCancelled() throws InterruptedException, IOException {
+        Router router = prepareServer();
+        server.accessor = new ServiceAccessor(
+                null,
+                server.configuration,
+                router,
+                getMockContentEngine(),
+                executor,
+                null,
+                Collections.<ExceptionMapper>emptyList()
+        );
+
+        CountDownLatch interrupted = new CountDownLatch(1);
+        // Prepare the router with a controller
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() {
+                return new AsyncResult(() -> {
+                    try {
+                        Thread.sleep(10000);
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                        throw e;
+                    }
+                    return ok("Too late");
+                }).withTimeout(100, TimeUnit.MILLISECONDS);
+            }
+        };
+        Route route = new RouteBuilder().route(HttpMethod.GET)
+                .on("/")
+                .to(controller, "index");
+        when(router.match(any(HttpMethod.class), anyString(), any(Request.class)))
+                .thenReturn(new RouteMatch(route, null));
+
+        server.start();
+        waitForStart(server);
+
+        int port = server.httpPort();
+        URL url = new URL("http://localhost:" + port + "/");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        assertThat(connection.getResponseCode()).isEqualTo(Status.GATEWAY_TIMEOUT);
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void testThatStoppingTheServerDrainsTheRequestsInProgress() throws InterruptedException, IOException {
+        Router router = prepareServer();
+        when(server.configuration.getIntegerWithDefault("vertx.drain.timeout", 10000)).thenReturn(5000);
+        server.accessor = new ServiceAccessor(
+                null,
+                server.configuration,
+                router,
+                getMockContentEngine(),
+                executor,
+                null,
+                Collections.<ExceptionMapper>emptyList()
+        );
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Prepare the router with a controller
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() {
+                return new AsyncResult(() -> {
+                    started.countDown();
+                    release.await();
+                    return ok("Done");
+                });
+            }
+        };
+        Route route = new RouteBuilder().route(HttpMethod.GET)
+                .on("/")
+                .to(controller, "index");
+        when(router.match(any(HttpMethod.class), anyString(), any(Request.class)))
+                .thenReturn(new RouteMatch(route, null));
+
+        server.start();
+        waitForStart(server);
+
+        int port = server.httpPort();
+        URL url = new URL("http://localhost:" + port + "/");
+        final int[] code = {0};
+        final String[] connectionHeader = {null};
+        Thread client = new Thread(() -> {
+            try {
+                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+                code[0] = connection.getResponseCode();
+                connectionHeader[0] = connection.getHeaderField(HeaderNames.CONNECTION);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+        client.start();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(server.getInFlightRequests()).isEqualTo(1);
+
+        Thread stopper = new Thread(server::stop);
+        stopper.start();
+        for (int i = 0; i < 100 && !server.isDraining(); i++) {
+            Thread.sleep(10);
+        }
+        assertThat(server.isDraining()).isTrue();
+
+        // The requests received while draining are still served, the server waits for them too.
+        final int[] lateCode = {0};
+        final String[] lateConnectionHeader = {null};
+        Thread late = new Thread(() -> {
+            try {
+                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+                lateCode[0] = connection.getResponseCode();
+                lateConnectionHeader[0] = connection.getHeaderField(HeaderNames.CONNECTION);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+        late.start();
+        for (int i = 0; i < 100 && server.getInFlightRequests() < 2; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(server.getInFlightRequests()).isEqualTo(2);
+        assertThat(stopper.isAlive()).isTrue();
+
+        // The requests in progress complete, and the connections are not reused.
+        release.countDown();
+        client.join(5000);
+        late.join(5000);
+        stopper.join(5000);
+        assertThat(code[0]).isEqualTo(Status.OK);
+        assertThat(connectionHeader[0]).isEqualToIgnoringCase("close");
+        assertThat(lateCode[0]).isEqualTo(Status.OK);
+        assertThat(lateConnectionHeader[0]).isEqualToIgnoringCase("close");
+        assertThat(stopper.isAlive()).isFalse();
+        assertThat(server.getInFlightRequests()).isEqualTo(0);
+    }
+
+    @Test
+    public void testThatAsyncResultsAreWrittenOnTheEventLoop() throws InterruptedException, IOException {
+        Router router = prepareServer();
+        server.accessor = new ServiceAccessor(
+                null,
+                server.configuration,
+                router,
+                getMockContentEngine(),
+                executor,
+                null,
+                Collections.<ExceptionMapper>emptyList()
+        );
+
+        final String[] writer = {null};
+        // Prepare the router with a controller
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() {
+                return async(() -> ok(new RenderableString("Alright") {
+                    @Override
+                    public long length() {
+                        // Called when the response is written.
+                        writer[0] = Thread.currentThread().getName();
+                        return super.length();
+                    }
+                }));
+            }
+        };
+        Route route = new RouteBuilder().route(HttpMethod.GET)
+                .on("/")
+                .to(controller, "index");
+        when(router.match(any(HttpMethod.class), anyString(), any(Request.class)))
+                .thenReturn(new RouteMatch(route, null));
+
+        server.start();
+        waitForStart(server);
+
+        int port = server.httpPort();
+        URL url = new URL("http://localhost:" + port + "/");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        assertThat(IOUtils.toString(connection.getInputStream())).isEqualTo("Alright");
+        assertThat(writer[0]).contains("eventloop");
+    }
+
+    @Test
+    public void testStreamedBody() throws InterruptedException, IOException {
+        Router router = prepareServer();
+        server.accessor = new ServiceAccessor(
+                null,
+                server.configuration,
+                router,
+                getMockContentEngine(),
+                executor,
+                null,
+                Collections.<ExceptionMapper>emptyList()
+        );
+
+        // Prepare the router with a controller counting the bytes of the body
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            @StreamedBody
+            public Result upload() throws IOException {
+                long count = 0;
+                try (InputStream stream = context().stream()) {
+                    byte[] buffer = new byte[1024];
+                    int read;
+                    while ((read = stream.read(buffer)) != -1) {
+                        count += read;
+                    }
+                }
+                return ok(Long.toString(count));
+            }
+        };
+        Route route = new RouteBuilder().route(HttpMethod.POST)
+                .on("/")
+                .to(controller, "upload");
+        when(router.match(any(HttpMethod.class), anyString(), any(Request.class)))
+                .thenReturn(new RouteMatch(route, null));
+
+        server.start();
+        waitForStart(server);
+
+        // The body is bigger than the 'request.body.max.size' limit.
+        int size = 1024 * 1024;
+        URL url = new URL("http://localhost:" + server.httpPort() + "/");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setChunkedStreamingMode(8192);
+        connection.setRequestProperty(HeaderNames.CONTENT_TYPE, MimeTypes.BINARY);
+        try (OutputStream out = connection.getOutputStream()) {
+            byte[] chunk = new byte[8192];
+            for (int i = 0; i < size / chunk.length; i++) {
+                out.write(chunk);
+            }
+        }
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        assertThat(IOUtils.toString(connection.getInputStream())).isEqualTo(Integer.toString(size));
+    }
+
     private Router prepareServer() {
         // Prepare the configuration
         ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
@@ -179,7 +522,8 @@ public class VertxHttpServerTest extends VertxBaseTest {
         Route route = new RouteBuilder().route(HttpMethod.GET)
                 .on("/")
                 .to(controller, "index");
-        when(router.getRouteFor(anyString(), anyString(), any(Request.class))).thenReturn(route);
+        when(router.match(any(HttpMethod.class), anyString(), any(Request.class)))
+                .thenReturn(new RouteMatch(route, null));
 
         server.start();
 
@@ -222,7 +566,8 @@ public class VertxHttpServerTest extends VertxBaseTest {
         Route route = new RouteBuilder().route(HttpMethod.POST)
                 .on("/")
                 .to(controller, "index");
-        when(router.getRouteFor(anyString(), anyString(), any(Request.class))).thenReturn(route);
+        when(router.match(any(HttpMethod.class), anyString(), any(Request.class)))
+                .thenReturn(new RouteMatch(route, null));
 
         server.start();
 
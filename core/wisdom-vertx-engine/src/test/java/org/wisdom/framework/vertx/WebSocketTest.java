@@ -20,10 +20,14 @@
 package org.wisdom.framework.vertx;
 
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.EventBus;
 import io.vertx.core.http.HttpClient;
 import io.vertx.core.http.HttpClientOptions;
 import org.junit.After;
+import org.junit.Assume;
 import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.api.exceptions.ExceptionMapper;
 import org.wisdom.api.http.websockets.WebSocketListener;
@@ -31,7 +35,9 @@ import org.wisdom.api.router.Router;
 import org.wisdom.framework.vertx.file.DiskFileUpload;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -46,6 +52,8 @@ import static org.mockito.Mockito.when;
  */
 public class WebSocketTest extends VertxBaseTest {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(WebSocketTest.class);
+
     private WisdomVertxServer server;
 
     @After
@@ -177,6 +185,67 @@ public class WebSocketTest extends VertxBaseTest {
         assertThat(success).hasSize(num);
     }
 
+    @Test
+    public void testThatMessagesAreSentToASingleClientAmongManySockets() {
+        // Does not start the server, only the socket management is checked.
+        WisdomVertxServer dispatcher = new WisdomVertxServer();
+        dispatcher.vertx = vertx;
+
+        List<FakeSocket> sockets = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            FakeSocket socket = new FakeSocket();
+            sockets.add(socket);
+            dispatcher.addSocket("/some-uri", socket);
+        }
+
+        for (FakeSocket socket : sockets) {
+            dispatcher.send("/some-uri", WisdomVertxServer.id(socket), "hello");
+        }
+
+        // Each socket has received its message (and the ones of the sockets sharing its id).
+        for (FakeSocket socket : sockets) {
+            assertThat(socket.received).isGreaterThanOrEqualTo(1);
+        }
+
+        // Closed sockets do not receive messages anymore.
+        FakeSocket closed = sockets.get(0);
+        dispatcher.removeSocket("/some-uri", closed);
+        int received = closed.received;
+        dispatcher.send("/some-uri", WisdomVertxServer.id(closed), "hello");
+        assertThat(closed.received).isEqualTo(received);
+        // Sockets are indexed by uri.
+        FakeSocket other = sockets.get(1);
+        received = other.received;
+        dispatcher.send("/another-uri", WisdomVertxServer.id(other), "hello");
+        assertThat(other.received).isEqualTo(received);
+    }
+
+    /**
+     * Measures the targeted sends with many connected clients. Disabled unless the {@literal vertx.test.benchmark}
+     * system property is set, the number of sockets is set with {@literal vertx.test.sockets}.
+     */
+    @Test
+    public void benchmarkTargetedSends() {
+        Assume.assumeTrue(Boolean.getBoolean("vertx.test.benchmark"));
+        WisdomVertxServer dispatcher = new WisdomVertxServer();
+        dispatcher.vertx = vertx;
+
+        int num = Integer.getInteger("vertx.test.sockets", 20000);
+        List<FakeSocket> sockets = new ArrayList<>();
+        for (int i = 0; i < num; i++) {
+            FakeSocket socket = new FakeSocket();
+            sockets.add(socket);
+            dispatcher.addSocket("/some-uri", socket);
+        }
+
+        long begin = System.nanoTime();
+        for (FakeSocket socket : sockets) {
+            dispatcher.send("/some-uri", WisdomVertxServer.id(socket), "hello");
+        }
+        long duration = System.nanoTime() - begin;
+        LOGGER.info("Sent {} messages to {} sockets in {} ms", num, num, TimeUnit.NANOSECONDS.toMillis(duration));
+    }
+
     private void prepareServer() throws InterruptedException, IOException {
         // Prepare the configuration
         ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
@@ -210,6 +279,35 @@ public class WebSocketTest extends VertxBaseTest {
         VertxHttpServerTest.waitForStart(server);
     }
 
+    private static class FakeSocket extends Socket {
+
+        private int received;
+
+        public FakeSocket() {
+            super(null);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
+
+        @Override
+        public String path() {
+            return "/some-uri";
+        }
+
+        @Override
+        public void publish(String message, EventBus bus) {
+            received++;
+        }
+    }
+
     private class Spy implements WebSocketListener {
 
         private final WisdomVertxServer server;
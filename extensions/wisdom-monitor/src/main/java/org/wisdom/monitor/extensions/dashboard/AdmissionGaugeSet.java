@@ -0,0 +1,107 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.monitor.extensions.dashboard;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.google.common.collect.ImmutableMap;
+import org.wisdom.api.engine.AdmissionStatistics;
+
+import java.util.Map;
+
+/**
+ * Some information about the admission control of the engine, i.e. the number of requests processed concurrently,
+ * and whether the engine is draining.
+ */
+public class AdmissionGaugeSet implements MetricSet {
+
+    /**
+     * The key to retrieve the concurrency limit.
+     */
+    public static final String LIMIT = "limit";
+
+    /**
+     * The key to retrieve the number of requests in progress.
+     */
+    public static final String IN_FLIGHT = "inFlight";
+
+    /**
+     * The key to retrieve the number of rejected requests.
+     */
+    public static final String REJECTED = "rejected";
+
+    /**
+     * The key to retrieve whether the engine is draining.
+     */
+    public static final String DRAINING = "draining";
+
+    private final AdmissionStatistics statistics;
+
+    /**
+     * Creates the gauge set.
+     *
+     * @param statistics the statistics exposed by the engine, {@code null} if not available
+     */
+    public AdmissionGaugeSet(AdmissionStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * @return the admission metrics: the current concurrency limit ({@literal -1} if not limited), the number of
+     * requests in progress, the number of rejected requests, and whether the engine is draining.
+     */
+    public Map<String, Metric> getMetrics() {
+        return ImmutableMap.<String, Metric>of(
+                LIMIT, new Gauge<Integer>() {
+                    /**
+                     * @return the concurrency limit.
+                     */
+                    public Integer getValue() {
+                        return statistics == null ? -1 : statistics.getConcurrencyLimit();
+                    }
+                },
+                IN_FLIGHT, new Gauge<Integer>() {
+                    /**
+                     * @return the number of requests in progress.
+                     */
+                    public Integer getValue() {
+                        return statistics == null ? 0 : statistics.getInFlightRequests();
+                    }
+                },
+                REJECTED, new Gauge<Long>() {
+                    /**
+                     * @return the number of rejected requests.
+                     */
+                    public Long getValue() {
+                        return statistics == null ? 0L : statistics.getRejectedRequests();
+                    }
+                },
+                DRAINING, new Gauge<Boolean>() {
+                    /**
+                     * @return whether the engine is draining.
+                     */
+                    public Boolean getValue() {
+                        return statistics != null && statistics.isDraining();
+                    }
+                }
+        );
+    }
+}
@@ -43,6 +43,7 @@ import org.wisdom.api.annotations.View;
 import org.wisdom.api.concurrent.ManagedScheduledExecutorService;
 import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.api.content.Json;
+import org.wisdom.api.engine.AdmissionStatistics;
 import org.wisdom.api.http.HttpMethod;
 import org.wisdom.api.http.Result;
 import org.wisdom.api.http.websockets.Publisher;
@@ -87,6 +88,9 @@ public class DashboardExtension extends DefaultController implements MonitorExte
     @Requires(specification = HealthCheck.class, optional = true)
     List<HealthCheck> healthChecks;
 
+    @Requires(optional = true)
+    AdmissionStatistics admission;
+
     @View("monitor/dashboard")
     Template monitor;
 
@@ -118,6 +122,7 @@ public class DashboardExtension extends DefaultController implements MonitorExte
         registry.register("jvm.buffers", new BufferPoolMetricSet(ManagementFactory.getPlatformMBeanServer()));
         registry.register("jvm.cpu", new CpuGaugeSet());
         registry.register("jvm.runtime", new RuntimeGaugeSet());
+        registry.register("http.admission", new AdmissionGaugeSet(admission));
 
         if (configuration.getBooleanWithDefault("monitor.http.enabled", true)) {
             logger().info("Registering HTTP metrics");
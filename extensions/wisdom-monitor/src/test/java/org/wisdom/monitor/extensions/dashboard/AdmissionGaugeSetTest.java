@@ -0,0 +1,57 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.monitor.extensions.dashboard;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import org.junit.Test;
+import org.wisdom.api.engine.AdmissionStatistics;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AdmissionGaugeSetTest {
+
+    @Test
+    public void testGetMetrics() throws Exception {
+        AdmissionStatistics statistics = mock(AdmissionStatistics.class);
+        when(statistics.getConcurrencyLimit()).thenReturn(10);
+        when(statistics.getInFlightRequests()).thenReturn(3);
+        when(statistics.getRejectedRequests()).thenReturn(5L);
+        when(statistics.isDraining()).thenReturn(true);
+        Map<String, Metric> metrics = new AdmissionGaugeSet(statistics).getMetrics();
+
+        assertThat(((Gauge) metrics.get(AdmissionGaugeSet.LIMIT)).getValue()).isEqualTo(10);
+        assertThat(((Gauge) metrics.get(AdmissionGaugeSet.IN_FLIGHT)).getValue()).isEqualTo(3);
+        assertThat(((Gauge) metrics.get(AdmissionGaugeSet.REJECTED)).getValue()).isEqualTo(5L);
+        assertThat(((Gauge) metrics.get(AdmissionGaugeSet.DRAINING)).getValue()).isEqualTo(true);
+    }
+
+    @Test
+    public void testWithoutStatistics() throws Exception {
+        Map<String, Metric> metrics = new AdmissionGaugeSet(null).getMetrics();
+        assertThat(((Gauge) metrics.get(AdmissionGaugeSet.LIMIT)).getValue()).isEqualTo(-1);
+        assertThat(((Gauge) metrics.get(AdmissionGaugeSet.REJECTED)).getValue()).isEqualTo(0L);
+        assertThat(((Gauge) metrics.get(AdmissionGaugeSet.DRAINING)).getValue()).isEqualTo(false);
+    }
+}